@@ -1,10 +1,13 @@
 package com.example.ferrazsergio.pricewatcher.analytics;
 
+import com.example.ferrazsergio.pricewatcher.analytics.config.AnalyticsProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
     "com.example.ferrazsergio.pricewatcher.analytics",
@@ -13,7 +16,9 @@ import org.springframework.scheduling.annotation.EnableAsync;
 })
 @EntityScan("com.example.ferrazsergio.pricewatcher.analytics.model")
 @EnableJpaRepositories("com.example.ferrazsergio.pricewatcher.analytics.repository")
+@EnableScheduling
 @EnableAsync
+@EnableConfigurationProperties(AnalyticsProperties.class)
 public class AnalyticsServiceApplication {
 
     public static void main(String[] args) {
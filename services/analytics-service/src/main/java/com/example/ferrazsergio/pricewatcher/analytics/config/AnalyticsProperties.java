@@ -0,0 +1,79 @@
+package com.example.ferrazsergio.pricewatcher.analytics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the analytics service (prefix {@code analytics})
+ */
+@Data
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProperties {
+
+    private PriceHistory priceHistory = new PriceHistory();
+    private Rollup rollup = new Rollup();
+    private Ingest ingest = new Ingest();
+
+    @Data
+    public static class PriceHistory {
+        /**
+         * Number of monthly partitions kept ready after the current month
+         */
+        private int partitionsAhead = 3;
+
+        /**
+         * Monthly partitions older than this many months are dropped; 0 keeps everything
+         */
+        private int retentionMonths = 0;
+
+        /**
+         * Longest time range a single history query may span, in days
+         */
+        private int maxQueryDays = 366;
+    }
+
+    @Data
+    public static class Rollup {
+        /**
+         * Longest range, in days, served from hourly rollups when no resolution is requested; longer
+         * ranges are served from daily rollups
+         */
+        private int hourlyMaxDays = 7;
+    }
+
+    /**
+     * Batched consumption of price change events from the analytics queue
+     */
+    @Data
+    public static class Ingest {
+        /**
+         * Number of consumers on the analytics queue
+         */
+        private int concurrency = 4;
+
+        /**
+         * Unacknowledged messages the broker may push to each consumer; at least the batch size
+         */
+        private int prefetch = 2000;
+
+        /**
+         * Messages a consumer collects before handing them over as one batch
+         */
+        private int batchSize = 500;
+
+        /**
+         * Milliseconds a consumer waits for more messages before handing over a partial batch
+         */
+        private long receiveTimeout = 100;
+
+        /**
+         * Observations waiting to be written at most; consumers block while the buffer is full
+         */
+        private int bufferCapacity = 20000;
+
+        /**
+         * Observations written at most per bulk insert
+         */
+        private int maxWriteSize = 5000;
+    }
+}
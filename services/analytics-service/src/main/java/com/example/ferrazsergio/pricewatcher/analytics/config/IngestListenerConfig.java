@@ -0,0 +1,41 @@
+package com.example.ferrazsergio.pricewatcher.analytics.config;
+
+import com.example.ferrazsergio.pricewatcher.events.retry.TieredRetryRecoverer;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Listener container for the analytics queue, which delivers messages to the listener in batches
+ */
+@Configuration
+public class IngestListenerConfig {
+
+    public static final String INGEST_CONTAINER_FACTORY = "priceIngestContainerFactory";
+
+    /**
+     * A batch is acknowledged when the listener returns, so messages are only acknowledged once their
+     * observations have been written. When it throws, the batch goes through the retry tiers.
+     */
+    @Bean(INGEST_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory priceIngestContainerFactory(ConnectionFactory connectionFactory,
+                                                                            AnalyticsProperties properties,
+                                                                            TieredRetryRecoverer retryRecoverer) {
+        AnalyticsProperties.Ingest ingest = properties.getIngest();
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(ingest.getBatchSize());
+        // A prefetch below the batch size would leave every batch waiting for the receive timeout
+        factory.setPrefetchCount(Math.max(ingest.getPrefetch(), ingest.getBatchSize()));
+        factory.setReceiveTimeout(ingest.getReceiveTimeout());
+        factory.setConcurrentConsumers(ingest.getConcurrency());
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setAdviceChain(retryRecoverer.interceptor());
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+}
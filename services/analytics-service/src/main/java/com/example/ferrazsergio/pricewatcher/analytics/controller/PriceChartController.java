@@ -0,0 +1,56 @@
+package com.example.ferrazsergio.pricewatcher.analytics.controller;
+
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceChartResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceReportResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.model.RollupResolution;
+import com.example.ferrazsergio.pricewatcher.analytics.service.PriceRollupService;
+import com.example.ferrazsergio.pricewatcher.common.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+/**
+ * REST Controller for price charts and reports served from the rollups
+ */
+@RestController
+@RequestMapping("/api/analytics/products")
+@RequiredArgsConstructor
+public class PriceChartController {
+
+    private final PriceRollupService priceRollupService;
+
+    /**
+     * Hourly or daily candles of a product; defaults to the last 30 days, with the resolution chosen
+     * from the length of the range unless given
+     */
+    @GetMapping("/{productId}/price-chart")
+    public ResponseEntity<ApiResponse<PriceChartResponse>> getPriceChart(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) RollupResolution resolution) {
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(ApiResponse.success(priceRollupService.getChart(productId, start, end, resolution)));
+    }
+
+    @GetMapping("/{productId}/price-report")
+    public ResponseEntity<ApiResponse<PriceReportResponse>> getPriceReport(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) RollupResolution resolution) {
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(ApiResponse.success(priceRollupService.getReport(productId, start, end, resolution)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.ferrazsergio.pricewatcher.analytics.controller;
+
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceHistoryResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.service.PriceHistoryService;
+import com.example.ferrazsergio.pricewatcher.common.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+/**
+ * REST Controller for product price history
+ */
+@RestController
+@RequestMapping("/api/analytics/products")
+@RequiredArgsConstructor
+public class PriceHistoryController {
+
+    private final PriceHistoryService priceHistoryService;
+
+    /**
+     * Price changes of a product in {@code [from, to)}; defaults to the last 30 days
+     */
+    @GetMapping("/{productId}/price-history")
+    public ResponseEntity<ApiResponse<PriceHistoryResponse>> getPriceHistory(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(ApiResponse.success(priceHistoryService.getHistory(productId, start, end)));
+    }
+}
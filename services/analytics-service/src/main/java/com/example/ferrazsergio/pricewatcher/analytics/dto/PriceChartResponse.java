@@ -0,0 +1,42 @@
+package com.example.ferrazsergio.pricewatcher.analytics.dto;
+
+import com.example.ferrazsergio.pricewatcher.analytics.model.RollupResolution;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO for a product's price candles over a time range
+ */
+public record PriceChartResponse(
+        Long productId,
+        RollupResolution resolution,
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime from,
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime to,
+
+        // Price in effect at the start of the range, null if the product had no price yet
+        BigDecimal startPrice,
+
+        // Buckets without a price change are omitted, the price stayed at the previous close
+        List<Candle> candles
+) {
+
+    public record Candle(
+            @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+            LocalDateTime bucketStart,
+
+            BigDecimal open,
+            BigDecimal high,
+            BigDecimal low,
+            BigDecimal close,
+            BigDecimal minEver,
+            int changes
+    ) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ferrazsergio.pricewatcher.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO for a product's price history over a time range
+ */
+public record PriceHistoryResponse(
+        Long productId,
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime from,
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime to,
+
+        // Price in effect at the start of the range, null if the product had no price yet
+        BigDecimal startPrice,
+
+        List<Change> changes
+) {
+
+    public record Change(
+            @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+            LocalDateTime observedAt,
+
+            BigDecimal price
+    ) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ferrazsergio.pricewatcher.analytics.dto;
+
+import com.example.ferrazsergio.pricewatcher.analytics.model.RollupResolution;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO summarizing a product's price over a time range
+ */
+public record PriceReportResponse(
+        Long productId,
+        RollupResolution resolution,
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime from,
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime to,
+
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close,
+        BigDecimal minEver,
+        int changes
+) {
+}
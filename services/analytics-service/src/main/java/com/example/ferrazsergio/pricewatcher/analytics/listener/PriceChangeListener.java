@@ -0,0 +1,121 @@
+package com.example.ferrazsergio.pricewatcher.analytics.listener;
+
+import com.example.ferrazsergio.pricewatcher.analytics.config.IngestListenerConfig;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import com.example.ferrazsergio.pricewatcher.analytics.service.PriceIngestBuffer;
+import com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig;
+import com.example.ferrazsergio.pricewatcher.events.model.PriceChangeDetectedEvent;
+import com.example.ferrazsergio.pricewatcher.events.routing.PriceChangePartitioner;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes price change events from the analytics queue in batches into the price history and rollups.
+ * The batch is acknowledged only after its observations have been stored.
+ * <p>
+ * Besides the analytics queue, which receives unpartitioned price changes and {@code analytics.process}
+ * messages, one container with a single consumer is registered for each price change partition assigned
+ * to this replica (see {@link PriceChangePartitioner}), so each product's changes are stored in order.
+ */
+@Component
+@Slf4j
+public class PriceChangeListener implements RabbitListenerConfigurer {
+
+    private final PriceIngestBuffer ingestBuffer;
+    private final MessageConverter messageConverter;
+    private final MeterRegistry meterRegistry;
+    private final PriceChangePartitioner partitioner;
+    private final SimpleRabbitListenerContainerFactory containerFactory;
+
+    public PriceChangeListener(PriceIngestBuffer ingestBuffer, MessageConverter messageConverter,
+                               MeterRegistry meterRegistry, PriceChangePartitioner partitioner,
+                               @Qualifier(IngestListenerConfig.INGEST_CONTAINER_FACTORY)
+                               SimpleRabbitListenerContainerFactory containerFactory) {
+        this.ingestBuffer = ingestBuffer;
+        this.messageConverter = messageConverter;
+        this.meterRegistry = meterRegistry;
+        this.partitioner = partitioner;
+        this.containerFactory = containerFactory;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (String queue : partitioner.assignedQueues(RabbitMQConfig.ANALYTICS_QUEUE)) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("price-ingest-" + queue);
+            endpoint.setQueueNames(queue);
+            // More consumers would only wait behind the single active one
+            endpoint.setConcurrency("1");
+            endpoint.setMessageListener(new MessageListener() {
+                @Override
+                public void onMessage(Message message) {
+                    onMessageBatch(List.of(message));
+                }
+
+                @Override
+                public void onMessageBatch(List<Message> messages) {
+                    try {
+                        onPriceChanges(messages);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while storing price changes", e);
+                    }
+                }
+            });
+            registrar.registerEndpoint(endpoint, containerFactory);
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.ANALYTICS_QUEUE,
+            containerFactory = IngestListenerConfig.INGEST_CONTAINER_FACTORY)
+    public void onPriceChanges(List<Message> messages) throws InterruptedException {
+        List<PricePoint> observations = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            PricePoint observation = toObservation(message);
+            if (observation != null) {
+                observations.add(observation);
+            }
+        }
+        meterRegistry.counter("analytics.ingest.messages").increment(messages.size());
+        meterRegistry.counter("analytics.ingest.skipped").increment(messages.size() - observations.size());
+        ingestBuffer.submit(observations);
+    }
+
+    /**
+     * Converts one message, or returns null for a message that can never be stored; such messages are
+     * acknowledged with the rest of the batch instead of being redelivered forever
+     */
+    private PricePoint toObservation(Message message) {
+        Object payload;
+        try {
+            payload = messageConverter.fromMessage(message);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring undecodable message on the analytics queue: {}", e.getMessage());
+            return null;
+        }
+        if (!(payload instanceof PriceChangeDetectedEvent event)) {
+            log.debug("Ignoring {} on the analytics queue", payload.getClass().getSimpleName());
+            return null;
+        }
+        if (event.getProductId() == null || event.getCurrentPrice() == null) {
+            log.warn("Ignoring price change event {} without product or price", event.getEventId());
+            return null;
+        }
+        LocalDateTime observedAt = event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now();
+        return PricePoint.of(event.getProductId(), observedAt, event.getCurrentPrice());
+    }
+}
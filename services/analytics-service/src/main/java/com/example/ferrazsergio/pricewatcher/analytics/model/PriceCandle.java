@@ -0,0 +1,19 @@
+package com.example.ferrazsergio.pricewatcher.analytics.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Open/high/low/close of a product's price over one rollup bucket, in integer cents. The open is the price in
+ * effect at the start of the bucket when an earlier one exists, otherwise its first change.
+ */
+public record PriceCandle(
+        long productId,
+        LocalDateTime bucketStart,
+        long openCents,
+        long highCents,
+        long lowCents,
+        long closeCents,
+        long minEverCents,
+        int sampleCount
+) {
+}
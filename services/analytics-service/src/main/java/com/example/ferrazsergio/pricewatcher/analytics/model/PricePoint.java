@@ -0,0 +1,23 @@
+package com.example.ferrazsergio.pricewatcher.analytics.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * A product's price from the given moment on, in integer cents
+ */
+public record PricePoint(long productId, LocalDateTime observedAt, long priceCents) {
+
+    public static PricePoint of(long productId, LocalDateTime observedAt, BigDecimal price) {
+        return new PricePoint(productId, observedAt, toCents(price));
+    }
+
+    public BigDecimal price() {
+        return BigDecimal.valueOf(priceCents, 2);
+    }
+
+    public static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ferrazsergio.pricewatcher.analytics.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket sizes of the price rollups
+ */
+public enum RollupResolution {
+    HOUR,
+    DAY;
+
+    public LocalDateTime bucketStart(LocalDateTime at) {
+        return this == HOUR ? at.truncatedTo(ChronoUnit.HOURS) : at.truncatedTo(ChronoUnit.DAYS);
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.ferrazsergio.pricewatcher.analytics.repository;
+
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC access to the price history tables
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceHistoryRepository {
+
+    private static final RowMapper<PricePoint> ROW_MAPPER = (rs, rowNum) -> new PricePoint(
+            rs.getLong("product_id"),
+            rs.getTimestamp("observed_at").toLocalDateTime(),
+            rs.getLong("price_cents")
+    );
+
+    /**
+     * Moves the latest price forward only when it changed and appends the change to the history, in one
+     * statement. An observation older than the latest one arrived late: it is appended when it differs from
+     * the price in effect at its time, leaving the latest price alone.
+     */
+    private static final String RECORD_CHANGE_SQL =
+            "WITH observation (product_id, observed_at, price_cents) AS (VALUES (?::bigint, ?::timestamp, ?::bigint)), " +
+            "changed AS (" +
+            "INSERT INTO price_history_latest AS l (product_id, observed_at, price_cents) " +
+            "SELECT product_id, observed_at, price_cents FROM observation " +
+            "ON CONFLICT (product_id) DO UPDATE SET observed_at = EXCLUDED.observed_at, price_cents = EXCLUDED.price_cents " +
+            "WHERE l.price_cents <> EXCLUDED.price_cents AND l.observed_at < EXCLUDED.observed_at " +
+            "RETURNING product_id, observed_at, price_cents), " +
+            "late AS (" +
+            "SELECT o.product_id, o.observed_at, o.price_cents FROM observation o " +
+            "JOIN price_history_latest l ON l.product_id = o.product_id AND l.observed_at > o.observed_at " +
+            "WHERE (SELECT h.price_cents FROM price_history h WHERE h.product_id = o.product_id " +
+            "AND h.observed_at < o.observed_at ORDER BY h.observed_at DESC LIMIT 1) IS DISTINCT FROM o.price_cents) " +
+            "INSERT INTO price_history (product_id, observed_at, price_cents) " +
+            "SELECT product_id, observed_at, price_cents FROM changed " +
+            "UNION ALL SELECT product_id, observed_at, price_cents FROM late ON CONFLICT DO NOTHING";
+
+    /**
+     * Carries the last change of each product before a cutoff into the baseline, unless it already holds a
+     * later one
+     */
+    private static final String CARRY_TO_BASELINE_SQL =
+            "INSERT INTO price_history_baseline AS b (product_id, observed_at, price_cents) " +
+            "SELECT DISTINCT ON (product_id) product_id, observed_at, price_cents FROM price_history " +
+            "WHERE observed_at < ? ORDER BY product_id, observed_at DESC " +
+            "ON CONFLICT (product_id) DO UPDATE SET observed_at = EXCLUDED.observed_at, price_cents = EXCLUDED.price_cents " +
+            "WHERE b.observed_at < EXCLUDED.observed_at";
+
+    private static final String DEFAULT_PARTITION = "price_history_default";
+    private static final String PARTITION_PREFIX = "price_history_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    /**
+     * Records the observations that change a product's price and returns them. An observation arriving
+     * after a later one of the same product is recorded when it differs from the price in effect at its
+     * time; the change following it is kept even if it no longer changes the price. Replaying an
+     * observation that was already recorded records nothing.
+     */
+    public List<PricePoint> recordChanges(List<PricePoint> observations) {
+        if (observations.isEmpty()) {
+            return List.of();
+        }
+        List<PricePoint> recorded = new ArrayList<>();
+        if (!isPostgres()) {
+            for (PricePoint observation : observations) {
+                if (recordChange(observation)) {
+                    recorded.add(observation);
+                }
+            }
+            return recorded;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(RECORD_CHANGE_SQL, observations, observations.size(),
+                (ps, observation) -> {
+                    ps.setLong(1, observation.productId());
+                    ps.setTimestamp(2, Timestamp.valueOf(observation.observedAt()));
+                    ps.setLong(3, observation.priceCents());
+                });
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // SUCCESS_NO_INFO (-2), reported when the driver rewrites batches, cannot be told apart from an
+                // ignored replay, so only rows known to be inserted are returned
+                if (count > 0) {
+                    recorded.add(observations.get(index));
+                }
+                index++;
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Price changes of a product in {@code [from, to)}, oldest first
+     */
+    public List<PricePoint> findChanges(long productId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT product_id, observed_at, price_cents FROM price_history " +
+                "WHERE product_id = ? AND observed_at >= ? AND observed_at < ? ORDER BY observed_at",
+                ROW_MAPPER, productId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * The last price change of a product before the given moment, i.e. the price in effect at that moment,
+     * including changes whose partition was dropped past retention
+     */
+    public Optional<PricePoint> findLastChangeBefore(long productId, LocalDateTime at) {
+        Timestamp before = Timestamp.valueOf(at);
+        List<PricePoint> candidates = new ArrayList<>(jdbcTemplate.query(
+                "SELECT product_id, observed_at, price_cents FROM price_history " +
+                "WHERE product_id = ? AND observed_at < ? ORDER BY observed_at DESC LIMIT 1",
+                ROW_MAPPER, productId, before));
+        candidates.addAll(jdbcTemplate.query(
+                "SELECT product_id, observed_at, price_cents FROM price_history_baseline " +
+                "WHERE product_id = ? AND observed_at < ?",
+                ROW_MAPPER, productId, before));
+        return candidates.stream().max(Comparator.comparing(PricePoint::observedAt));
+    }
+
+    public boolean supportsPartitioning() {
+        return isPostgres();
+    }
+
+    /**
+     * Creates the partition holding the given month unless it already exists. Rows of that month already
+     * caught by the default partition, which would make creating it fail, are moved into it: the default
+     * partition is detached meanwhile, locking the table until the transaction ends.
+     */
+    @Transactional
+    public void createMonthlyPartition(YearMonth month) {
+        String partition = partitionName(month);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?::text) IS NOT NULL", Boolean.class, partition);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String create = String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF price_history FOR VALUES FROM ('%s') TO ('%s')",
+                partition, month.atDay(1), month.plusMonths(1).atDay(1));
+        Boolean strays = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE observed_at >= ? AND observed_at < ?)",
+                Boolean.class, from, to);
+        if (!Boolean.TRUE.equals(strays)) {
+            jdbcTemplate.execute(create);
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE price_history DETACH PARTITION " + DEFAULT_PARTITION);
+        jdbcTemplate.execute(create);
+        jdbcTemplate.update(
+                "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE observed_at >= ? AND observed_at < ? " +
+                "RETURNING product_id, observed_at, price_cents) " +
+                "INSERT INTO price_history (product_id, observed_at, price_cents) " +
+                "SELECT product_id, observed_at, price_cents FROM moved",
+                from, to);
+        jdbcTemplate.execute("ALTER TABLE price_history ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+    }
+
+    /**
+     * Drops the monthly partitions covering months before the given one and returns their names. Each
+     * product's last change before that month is kept in the baseline first, as it still sets the price
+     * in effect at the start of the retained history.
+     */
+    @Transactional
+    public List<String> dropPartitionsBefore(YearMonth month) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'price_history'", String.class);
+        String cutoff = month.format(PARTITION_SUFFIX);
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches() && matcher.group(1).compareTo(cutoff) < 0) {
+                expired.add(partition);
+            }
+        }
+        if (expired.isEmpty()) {
+            return expired;
+        }
+        jdbcTemplate.update(CARRY_TO_BASELINE_SQL, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+        for (String partition : expired) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        }
+        return expired;
+    }
+
+    private boolean recordChange(PricePoint observation) {
+        List<PricePoint> latest = jdbcTemplate.query(
+                "SELECT product_id, observed_at, price_cents FROM price_history_latest WHERE product_id = ?",
+                ROW_MAPPER, observation.productId());
+        Timestamp observedAt = Timestamp.valueOf(observation.observedAt());
+        if (latest.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO price_history_latest (product_id, observed_at, price_cents) VALUES (?, ?, ?)",
+                    observation.productId(), observedAt, observation.priceCents());
+        } else if (latest.get(0).observedAt().isBefore(observation.observedAt())) {
+            if (latest.get(0).priceCents() == observation.priceCents()) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE price_history_latest SET observed_at = ?, price_cents = ? WHERE product_id = ?",
+                    observedAt, observation.priceCents(), observation.productId());
+        } else if (!latest.get(0).observedAt().isAfter(observation.observedAt())
+                || isInEffect(observation)) {
+            return false;
+        }
+        jdbcTemplate.update("INSERT INTO price_history (product_id, observed_at, price_cents) VALUES (?, ?, ?)",
+                observation.productId(), observedAt, observation.priceCents());
+        return true;
+    }
+
+    /**
+     * Whether a late observation repeats the price in effect at its time, or was already recorded
+     */
+    private boolean isInEffect(PricePoint observation) {
+        List<PricePoint> previous = jdbcTemplate.query(
+                "SELECT product_id, observed_at, price_cents FROM price_history " +
+                "WHERE product_id = ? AND observed_at <= ? ORDER BY observed_at DESC LIMIT 1",
+                ROW_MAPPER, observation.productId(), Timestamp.valueOf(observation.observedAt()));
+        return !previous.isEmpty() && (previous.get(0).priceCents() == observation.priceCents()
+                || previous.get(0).observedAt().equals(observation.observedAt()));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private boolean isPostgres() {
+        Boolean postgres = this.postgres;
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+            this.postgres = postgres;
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.ferrazsergio.pricewatcher.analytics.repository;
+
+import com.example.ferrazsergio.pricewatcher.analytics.model.PriceCandle;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import com.example.ferrazsergio.pricewatcher.analytics.model.RollupResolution;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to the hourly and daily price rollups
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceRollupRepository {
+
+    private static final RowMapper<PriceCandle> ROW_MAPPER = (rs, rowNum) -> new PriceCandle(
+            rs.getLong("product_id"),
+            rs.getTimestamp("bucket_start").toLocalDateTime(),
+            rs.getLong("open_cents"),
+            rs.getLong("high_cents"),
+            rs.getLong("low_cents"),
+            rs.getLong("close_cents"),
+            rs.getLong("min_ever_cents"),
+            rs.getInt("sample_count")
+    );
+
+    private static final String UPSERT_MIN_EVER_SQL =
+            "INSERT INTO price_min_ever AS m (product_id, price_cents, observed_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (product_id) DO UPDATE SET price_cents = EXCLUDED.price_cents, observed_at = EXCLUDED.observed_at " +
+            "WHERE EXCLUDED.price_cents < m.price_cents";
+
+    private static final String MERGE_MIN_EVER_SQL =
+            "MERGE INTO price_min_ever m USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS TIMESTAMP))) " +
+            "AS v(product_id, price_cents, observed_at) ON m.product_id = v.product_id " +
+            "WHEN MATCHED AND v.price_cents < m.price_cents THEN " +
+            "UPDATE SET price_cents = v.price_cents, observed_at = v.observed_at " +
+            "WHEN NOT MATCHED THEN INSERT (product_id, price_cents, observed_at) " +
+            "VALUES (v.product_id, v.price_cents, v.observed_at)";
+
+    /**
+     * Folds one change into its bucket; parameters are product id, bucket start, price, observed at. A new
+     * bucket opens at the close of the product's previous bucket, the price in effect at its start, which
+     * then counts towards its high and low; opened_at is the bucket start in that case. The product's
+     * lowest price is read from price_min_ever, which is updated first.
+     */
+    private static final String UPSERT_CANDLE_SQL =
+            "INSERT INTO %1$s AS r (product_id, bucket_start, open_cents, high_cents, low_cents, close_cents, " +
+            "min_ever_cents, sample_count, opened_at, closed_at) " +
+            "SELECT s.product_id, s.bucket_start, COALESCE(s.carried_cents, s.price_cents), " +
+            "GREATEST(COALESCE(s.carried_cents, s.price_cents), s.price_cents), " +
+            "LEAST(COALESCE(s.carried_cents, s.price_cents), s.price_cents), s.price_cents, " +
+            "COALESCE((SELECT m.price_cents FROM price_min_ever m WHERE m.product_id = s.product_id), s.price_cents), " +
+            "1, CASE WHEN s.carried_cents IS NULL THEN s.observed_at ELSE s.bucket_start END, s.observed_at " +
+            "FROM (SELECT v.product_id, v.bucket_start, v.price_cents, v.observed_at, " +
+            "(SELECT p.close_cents FROM %1$s p WHERE p.product_id = v.product_id AND p.bucket_start < v.bucket_start " +
+            "ORDER BY p.bucket_start DESC LIMIT 1) AS carried_cents " +
+            "FROM (VALUES (CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS TIMESTAMP))) " +
+            "AS v(product_id, bucket_start, price_cents, observed_at)) s " +
+            "ON CONFLICT (product_id, bucket_start) DO UPDATE SET " +
+            "open_cents = CASE WHEN EXCLUDED.closed_at <= r.opened_at THEN EXCLUDED.close_cents ELSE r.open_cents END, " +
+            "high_cents = GREATEST(r.high_cents, EXCLUDED.close_cents), " +
+            "low_cents = LEAST(r.low_cents, EXCLUDED.close_cents), " +
+            "close_cents = CASE WHEN EXCLUDED.closed_at >= r.closed_at THEN EXCLUDED.close_cents ELSE r.close_cents END, " +
+            "min_ever_cents = LEAST(r.min_ever_cents, EXCLUDED.min_ever_cents), " +
+            "sample_count = r.sample_count + 1, " +
+            "opened_at = LEAST(r.opened_at, EXCLUDED.closed_at), " +
+            "closed_at = GREATEST(r.closed_at, EXCLUDED.closed_at)";
+
+    private static final String MERGE_CANDLE_SQL =
+            "MERGE INTO %1$s r " +
+            "USING (SELECT v.product_id, v.bucket_start, v.price_cents, v.observed_at, " +
+            "(SELECT p.close_cents FROM %1$s p WHERE p.product_id = v.product_id AND p.bucket_start < v.bucket_start " +
+            "ORDER BY p.bucket_start DESC LIMIT 1) AS carried_cents " +
+            "FROM (VALUES (CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS TIMESTAMP))) " +
+            "AS v(product_id, bucket_start, price_cents, observed_at)) s " +
+            "ON r.product_id = s.product_id AND r.bucket_start = s.bucket_start " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "open_cents = CASE WHEN s.observed_at <= r.opened_at THEN s.price_cents ELSE r.open_cents END, " +
+            "high_cents = GREATEST(r.high_cents, s.price_cents), " +
+            "low_cents = LEAST(r.low_cents, s.price_cents), " +
+            "close_cents = CASE WHEN s.observed_at >= r.closed_at THEN s.price_cents ELSE r.close_cents END, " +
+            "min_ever_cents = LEAST(r.min_ever_cents, s.price_cents), " +
+            "sample_count = r.sample_count + 1, " +
+            "opened_at = LEAST(r.opened_at, s.observed_at), " +
+            "closed_at = GREATEST(r.closed_at, s.observed_at) " +
+            "WHEN NOT MATCHED THEN INSERT (product_id, bucket_start, open_cents, high_cents, low_cents, close_cents, " +
+            "min_ever_cents, sample_count, opened_at, closed_at) " +
+            "VALUES (s.product_id, s.bucket_start, COALESCE(s.carried_cents, s.price_cents), " +
+            "GREATEST(COALESCE(s.carried_cents, s.price_cents), s.price_cents), " +
+            "LEAST(COALESCE(s.carried_cents, s.price_cents), s.price_cents), s.price_cents, " +
+            "COALESCE((SELECT m.price_cents FROM price_min_ever m WHERE m.product_id = s.product_id), s.price_cents), " +
+            "1, CASE WHEN s.carried_cents IS NULL THEN s.observed_at ELSE s.bucket_start END, s.observed_at)";
+
+    /**
+     * Carries a change that closes its bucket into the open of the product's next bucket, for changes arriving
+     * after later ones; parameters are the price three times, product id, bucket start twice, observed at. The
+     * next bucket's high and low are taken again from its changes in the history, as the open they included
+     * is no longer the price in effect at its start.
+     */
+    private static final String CARRY_CLOSE_SQL =
+            "UPDATE %1$s r SET open_cents = ?, opened_at = r.bucket_start, " +
+            "high_cents = GREATEST(?, COALESCE((SELECT MAX(h.price_cents) FROM price_history h " +
+            "WHERE h.product_id = r.product_id AND h.observed_at >= r.bucket_start AND h.observed_at <= r.closed_at), " +
+            "r.high_cents)), " +
+            "low_cents = LEAST(?, COALESCE((SELECT MIN(h.price_cents) FROM price_history h " +
+            "WHERE h.product_id = r.product_id AND h.observed_at >= r.bucket_start AND h.observed_at <= r.closed_at), " +
+            "r.low_cents)) " +
+            "WHERE r.product_id = ? " +
+            "AND r.bucket_start = (SELECT MIN(n.bucket_start) FROM %1$s n WHERE n.product_id = r.product_id " +
+            "AND n.bucket_start > ?) " +
+            "AND EXISTS (SELECT 1 FROM %1$s c WHERE c.product_id = r.product_id AND c.bucket_start = ? " +
+            "AND c.closed_at = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    /**
+     * Folds price changes into the lowest-price table and the hourly and daily rollups. The changes must
+     * already be in the price history, which a late change reads to correct the bucket following its own.
+     */
+    public void apply(List<PricePoint> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        boolean postgres = isPostgres();
+        jdbcTemplate.batchUpdate(postgres ? UPSERT_MIN_EVER_SQL : MERGE_MIN_EVER_SQL, changes, changes.size(),
+                (ps, change) -> {
+                    ps.setLong(1, change.productId());
+                    ps.setLong(2, change.priceCents());
+                    ps.setTimestamp(3, Timestamp.valueOf(change.observedAt()));
+                });
+        for (RollupResolution resolution : RollupResolution.values()) {
+            String sql = String.format(postgres ? UPSERT_CANDLE_SQL : MERGE_CANDLE_SQL, table(resolution));
+            jdbcTemplate.batchUpdate(sql, changes, changes.size(), (ps, change) -> {
+                ps.setLong(1, change.productId());
+                ps.setTimestamp(2, Timestamp.valueOf(resolution.bucketStart(change.observedAt())));
+                ps.setLong(3, change.priceCents());
+                ps.setTimestamp(4, Timestamp.valueOf(change.observedAt()));
+            });
+            jdbcTemplate.batchUpdate(String.format(CARRY_CLOSE_SQL, table(resolution)), changes, changes.size(),
+                    (ps, change) -> {
+                        Timestamp bucketStart = Timestamp.valueOf(resolution.bucketStart(change.observedAt()));
+                        ps.setLong(1, change.priceCents());
+                        ps.setLong(2, change.priceCents());
+                        ps.setLong(3, change.priceCents());
+                        ps.setLong(4, change.productId());
+                        ps.setTimestamp(5, bucketStart);
+                        ps.setTimestamp(6, bucketStart);
+                        ps.setTimestamp(7, Timestamp.valueOf(change.observedAt()));
+                    });
+        }
+    }
+
+    /**
+     * Buckets of a product starting in {@code [from, to)}, oldest first; buckets without changes are absent
+     */
+    public List<PriceCandle> findCandles(long productId, RollupResolution resolution,
+                                         LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT product_id, bucket_start, open_cents, high_cents, low_cents, close_cents, min_ever_cents, " +
+                "sample_count FROM " + table(resolution) + " " +
+                "WHERE product_id = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start",
+                ROW_MAPPER, productId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * The last bucket of a product starting before the given moment, whose close is the price in effect then
+     */
+    public Optional<PriceCandle> findLastCandleBefore(long productId, RollupResolution resolution, LocalDateTime at) {
+        return jdbcTemplate.query(
+                "SELECT product_id, bucket_start, open_cents, high_cents, low_cents, close_cents, min_ever_cents, " +
+                "sample_count FROM " + table(resolution) + " " +
+                "WHERE product_id = ? AND bucket_start < ? ORDER BY bucket_start DESC LIMIT 1",
+                ROW_MAPPER, productId, Timestamp.valueOf(at)).stream().findFirst();
+    }
+
+    private static String table(RollupResolution resolution) {
+        return switch (resolution) {
+            case HOUR -> "price_rollup_hourly";
+            case DAY -> "price_rollup_daily";
+        };
+    }
+
+    private boolean isPostgres() {
+        Boolean postgres = this.postgres;
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+            this.postgres = postgres;
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ferrazsergio.pricewatcher.analytics.service;
+
+import com.example.ferrazsergio.pricewatcher.analytics.config.AnalyticsProperties;
+import com.example.ferrazsergio.pricewatcher.analytics.repository.PriceHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps monthly price history partitions created ahead of time and drops those past retention
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryPartitionManager {
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final AnalyticsProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${analytics.price-history.partition-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        if (!priceHistoryRepository.supportsPartitioning()) {
+            return;
+        }
+        AnalyticsProperties.PriceHistory priceHistory = properties.getPriceHistory();
+        YearMonth current = YearMonth.now();
+        try {
+            for (int ahead = 0; ahead <= priceHistory.getPartitionsAhead(); ahead++) {
+                priceHistoryRepository.createMonthlyPartition(current.plusMonths(ahead));
+            }
+            if (priceHistory.getRetentionMonths() > 0) {
+                List<String> dropped = priceHistoryRepository
+                        .dropPartitionsBefore(current.minusMonths(priceHistory.getRetentionMonths()));
+                if (!dropped.isEmpty()) {
+                    log.info("Dropped price history partitions past retention: {}", dropped);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to maintain price history partitions", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.ferrazsergio.pricewatcher.analytics.service;
+
+import com.example.ferrazsergio.pricewatcher.analytics.config.AnalyticsProperties;
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceHistoryResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import com.example.ferrazsergio.pricewatcher.analytics.repository.PriceHistoryRepository;
+import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Records price observations as changes and serves a product's price history
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryService {
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final AnalyticsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Records a single observation; returns whether it changed the product's price
+     */
+    @Transactional
+    public boolean record(Long productId, BigDecimal price, LocalDateTime observedAt) {
+        return !recordAll(List.of(PricePoint.of(productId, observedAt, price))).isEmpty();
+    }
+
+    /**
+     * Records observations; only those that change a product's price at their time are stored, and
+     * those are returned
+     */
+    @Transactional
+    public List<PricePoint> recordAll(List<PricePoint> observations) {
+        List<PricePoint> recorded = priceHistoryRepository.recordChanges(observations);
+        meterRegistry.counter("analytics.price.history.observations").increment(observations.size());
+        meterRegistry.counter("analytics.price.history.changes").increment(recorded.size());
+        return recorded;
+    }
+
+    @Transactional(readOnly = true)
+    public PriceHistoryResponse getHistory(Long productId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BusinessException("Start of the range must be before its end");
+        }
+        int maxDays = properties.getPriceHistory().getMaxQueryDays();
+        if (Duration.between(from, to).compareTo(Duration.ofDays(maxDays)) > 0) {
+            throw new BusinessException("Price history range cannot exceed " + maxDays + " days");
+        }
+
+        BigDecimal startPrice = priceHistoryRepository.findLastChangeBefore(productId, from)
+                .map(PricePoint::price)
+                .orElse(null);
+        List<PriceHistoryResponse.Change> changes = priceHistoryRepository.findChanges(productId, from, to).stream()
+                .map(point -> new PriceHistoryResponse.Change(point.observedAt(), point.price()))
+                .toList();
+        return new PriceHistoryResponse(productId, from, to, startPrice, changes);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.ferrazsergio.pricewatcher.analytics.service;
+
+import com.example.ferrazsergio.pricewatcher.analytics.config.AnalyticsProperties;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer between the analytics queue consumers and the price store.
+ * <p>
+ * Consumers submit the observations of a message batch and block until a single writer has stored
+ * them, coalescing the batches of all consumers into bulk inserts of up to
+ * {@code analytics.ingest.max-write-size} observations. At most {@code buffer-capacity} observations
+ * are waiting at any time; consumers block while the buffer is full, so they stop acknowledging and
+ * the broker stops delivering once their prefetch is used up. A single writer also keeps concurrent
+ * transactions from upserting the same products' rows in different orders.
+ */
+@Slf4j
+@Component
+public class PriceIngestBuffer implements DisposableBean {
+
+    private static final Comparator<PricePoint> BY_PRODUCT_AND_TIME = Comparator
+            .comparingLong(PricePoint::productId)
+            .thenComparing(PricePoint::observedAt);
+
+    private final PriceIngestService ingestService;
+    private final AnalyticsProperties.Ingest ingest;
+    private final MeterRegistry meterRegistry;
+    private final Timer writeTimer;
+    private final Semaphore space;
+    private final BlockingQueue<Submission> pending = new LinkedBlockingQueue<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "price-ingest-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    public PriceIngestBuffer(PriceIngestService ingestService, AnalyticsProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.ingestService = ingestService;
+        this.ingest = properties.getIngest();
+        this.meterRegistry = meterRegistry;
+        this.space = new Semaphore(ingest.getBufferCapacity());
+        this.writeTimer = Timer.builder("analytics.ingest.write")
+                .description("Time taken to store a bulk of price observations")
+                .register(meterRegistry);
+        meterRegistry.gauge("analytics.ingest.buffered", space,
+                available -> ingest.getBufferCapacity() - available.availablePermits());
+        writer.submit(this::drain);
+    }
+
+    /**
+     * Stores the observations, blocking while the buffer is full and until they have been written.
+     * Throws if they could not be written, so the caller's messages are retried.
+     */
+    public void submit(List<PricePoint> observations) throws InterruptedException {
+        if (observations.isEmpty()) {
+            return;
+        }
+        // A batch larger than the whole buffer is admitted on its own once the buffer is empty
+        int permits = Math.min(observations.size(), ingest.getBufferCapacity());
+        space.acquire(permits);
+        Submission submission = new Submission(observations, permits, new CompletableFuture<>());
+        if (!running) {
+            space.release(permits);
+            throw new IllegalStateException("Price ingest buffer is shut down");
+        }
+        pending.add(submission);
+        try {
+            submission.written().get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to store " + observations.size() + " price observations",
+                    e.getCause());
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            Submission first;
+            try {
+                first = pending.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+            List<Submission> bulk = new ArrayList<>();
+            bulk.add(first);
+            int size = first.observations().size();
+            Submission next;
+            while (size < ingest.getMaxWriteSize() && (next = pending.poll()) != null) {
+                bulk.add(next);
+                size += next.observations().size();
+            }
+            write(bulk, size);
+        }
+        failPending();
+    }
+
+    private void write(List<Submission> bulk, int size) {
+        List<PricePoint> observations = new ArrayList<>(size);
+        bulk.forEach(submission -> observations.addAll(submission.observations()));
+        // The history expects the observations of each product in time order
+        observations.sort(BY_PRODUCT_AND_TIME);
+        try {
+            int changes = writeTimer.recordCallable(() -> ingestService.ingest(observations));
+            meterRegistry.counter("analytics.ingest.observations").increment(size);
+            meterRegistry.counter("analytics.ingest.changes").increment(changes);
+            bulk.forEach(submission -> submission.written().complete(null));
+        } catch (Exception e) {
+            log.error("Failed to store {} price observations", size, e);
+            meterRegistry.counter("analytics.ingest.failed").increment(size);
+            bulk.forEach(submission -> submission.written().completeExceptionally(e));
+        } finally {
+            bulk.forEach(submission -> space.release(submission.permits()));
+        }
+    }
+
+    private void failPending() {
+        Submission submission;
+        while ((submission = pending.poll()) != null) {
+            space.release(submission.permits());
+            submission.written().completeExceptionally(new IllegalStateException("Price ingest buffer is shut down"));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            writer.shutdownNow();
+        }
+        failPending();
+    }
+
+    private record Submission(List<PricePoint> observations, int permits, CompletableFuture<Void> written) {
+    }
+}
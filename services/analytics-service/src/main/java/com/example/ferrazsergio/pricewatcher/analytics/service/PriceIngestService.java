@@ -0,0 +1,27 @@
+package com.example.ferrazsergio.pricewatcher.analytics.service;
+
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Stores observed prices in the history and rollups in one transaction. Only observations the history
+ * records as changes reach the rollups, so a redelivered observation is not counted twice.
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceIngestService {
+
+    private final PriceHistoryService priceHistoryService;
+    private final PriceRollupService priceRollupService;
+
+    @Transactional
+    public int ingest(List<PricePoint> observations) {
+        List<PricePoint> changes = priceHistoryService.recordAll(observations);
+        priceRollupService.apply(changes);
+        return changes.size();
+    }
+}
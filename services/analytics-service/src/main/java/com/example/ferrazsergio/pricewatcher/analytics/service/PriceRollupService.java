@@ -0,0 +1,111 @@
+package com.example.ferrazsergio.pricewatcher.analytics.service;
+
+import com.example.ferrazsergio.pricewatcher.analytics.config.AnalyticsProperties;
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceChartResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceReportResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PriceCandle;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import com.example.ferrazsergio.pricewatcher.analytics.model.RollupResolution;
+import com.example.ferrazsergio.pricewatcher.analytics.repository.PriceRollupRepository;
+import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains the hourly and daily price rollups and serves charts and reports from them, so the cost
+ * of a query depends on the length of its range rather than on how often the price changed
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceRollupService {
+
+    private final PriceRollupRepository rollupRepository;
+    private final AnalyticsProperties properties;
+
+    /**
+     * Folds newly recorded price changes into the rollups
+     */
+    @Transactional
+    public void apply(List<PricePoint> changes) {
+        rollupRepository.apply(changes);
+    }
+
+    @Transactional(readOnly = true)
+    public PriceChartResponse getChart(Long productId, LocalDateTime from, LocalDateTime to,
+                                       RollupResolution requested) {
+        RollupResolution resolution = resolve(from, to, requested);
+        LocalDateTime start = resolution.bucketStart(from);
+        List<PriceCandle> candles = rollupRepository.findCandles(productId, resolution, start, to);
+        BigDecimal startPrice = rollupRepository.findLastCandleBefore(productId, resolution, start)
+                .map(candle -> price(candle.closeCents()))
+                .orElse(null);
+
+        List<PriceChartResponse.Candle> body = candles.stream()
+                .map(candle -> new PriceChartResponse.Candle(candle.bucketStart(),
+                        price(candle.openCents()), price(candle.highCents()), price(candle.lowCents()),
+                        price(candle.closeCents()), price(candle.minEverCents()), candle.sampleCount()))
+                .toList();
+        return new PriceChartResponse(productId, resolution, start, to, startPrice, body);
+    }
+
+    /**
+     * Summarizes the price over a range; the price in effect at its start counts as its open
+     */
+    @Transactional(readOnly = true)
+    public PriceReportResponse getReport(Long productId, LocalDateTime from, LocalDateTime to,
+                                         RollupResolution requested) {
+        RollupResolution resolution = resolve(from, to, requested);
+        LocalDateTime start = resolution.bucketStart(from);
+        List<PriceCandle> candles = rollupRepository.findCandles(productId, resolution, start, to);
+        Optional<PriceCandle> previous = rollupRepository.findLastCandleBefore(productId, resolution, start);
+
+        Long open = previous.map(PriceCandle::closeCents)
+                .orElse(candles.isEmpty() ? null : candles.get(0).openCents());
+        if (open == null) {
+            return new PriceReportResponse(productId, resolution, start, to, null, null, null, null, null, 0);
+        }
+        long high = open;
+        long low = open;
+        long close = open;
+        long minEver = previous.map(PriceCandle::minEverCents).orElse(open);
+        int changes = 0;
+        for (PriceCandle candle : candles) {
+            high = Math.max(high, candle.highCents());
+            low = Math.min(low, candle.lowCents());
+            close = candle.closeCents();
+            minEver = Math.min(minEver, candle.minEverCents());
+            changes += candle.sampleCount();
+        }
+        return new PriceReportResponse(productId, resolution, start, to,
+                price(open), price(high), price(low), price(close), price(minEver), changes);
+    }
+
+    private RollupResolution resolve(LocalDateTime from, LocalDateTime to, RollupResolution requested) {
+        if (!from.isBefore(to)) {
+            throw new BusinessException("Start of the range must be before its end");
+        }
+        Duration range = Duration.between(from, to);
+        if (requested == RollupResolution.HOUR
+                && range.compareTo(Duration.ofDays(properties.getPriceHistory().getMaxQueryDays())) > 0) {
+            throw new BusinessException("Hourly price charts cannot exceed "
+                    + properties.getPriceHistory().getMaxQueryDays() + " days");
+        }
+        if (requested != null) {
+            return requested;
+        }
+        return range.compareTo(Duration.ofDays(properties.getRollup().getHourlyMaxDays())) <= 0
+                ? RollupResolution.HOUR
+                : RollupResolution.DAY;
+    }
+
+    private static BigDecimal price(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,13 @@
+-- Unpartitioned equivalent of the PostgreSQL schema for local runs on H2
+CREATE TABLE IF NOT EXISTS price_history (
+    product_id BIGINT NOT NULL,
+    observed_at TIMESTAMP NOT NULL,
+    price_cents BIGINT NOT NULL,
+    PRIMARY KEY (product_id, observed_at)
+);
+
+CREATE TABLE IF NOT EXISTS price_history_latest (
+    product_id BIGINT PRIMARY KEY,
+    observed_at TIMESTAMP NOT NULL,
+    price_cents BIGINT NOT NULL
+);
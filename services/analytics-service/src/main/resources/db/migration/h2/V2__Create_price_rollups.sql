@@ -0,0 +1,39 @@
+-- Hourly and daily open/high/low/close rollups of price changes, maintained incrementally as changes arrive.
+-- A bucket opens at the close of the product's previous bucket, if any. opened_at/closed_at are the times of
+-- the open (the bucket start when carried over) and of the last change, so changes arriving out of order still
+-- yield the right open and close; min_ever_cents is the product's lowest price known when the bucket was last
+-- updated.
+CREATE TABLE IF NOT EXISTS price_rollup_hourly (
+    product_id BIGINT NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open_cents BIGINT NOT NULL,
+    high_cents BIGINT NOT NULL,
+    low_cents BIGINT NOT NULL,
+    close_cents BIGINT NOT NULL,
+    min_ever_cents BIGINT NOT NULL,
+    sample_count INTEGER NOT NULL,
+    opened_at TIMESTAMP NOT NULL,
+    closed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (product_id, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS price_rollup_daily (
+    product_id BIGINT NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open_cents BIGINT NOT NULL,
+    high_cents BIGINT NOT NULL,
+    low_cents BIGINT NOT NULL,
+    close_cents BIGINT NOT NULL,
+    min_ever_cents BIGINT NOT NULL,
+    sample_count INTEGER NOT NULL,
+    opened_at TIMESTAMP NOT NULL,
+    closed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (product_id, bucket_start)
+);
+
+-- Lowest price ever recorded per product
+CREATE TABLE IF NOT EXISTS price_min_ever (
+    product_id BIGINT PRIMARY KEY,
+    price_cents BIGINT NOT NULL,
+    observed_at TIMESTAMP NOT NULL
+);
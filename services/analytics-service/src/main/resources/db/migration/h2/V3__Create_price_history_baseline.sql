@@ -0,0 +1,6 @@
+-- Unpartitioned equivalent of the PostgreSQL schema; H2 keeps the full history, so this stays empty
+CREATE TABLE IF NOT EXISTS price_history_baseline (
+    product_id BIGINT PRIMARY KEY,
+    observed_at TIMESTAMP NOT NULL,
+    price_cents BIGINT NOT NULL
+);
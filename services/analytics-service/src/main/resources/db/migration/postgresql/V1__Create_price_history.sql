@@ -0,0 +1,18 @@
+-- Price observations, one row per price change, stored as integer cents and range-partitioned by month.
+-- Monthly partitions are created ahead of time by PriceHistoryPartitionManager; the default partition
+-- only catches rows outside the prepared range.
+CREATE TABLE IF NOT EXISTS price_history (
+    product_id BIGINT NOT NULL,
+    observed_at TIMESTAMP NOT NULL,
+    price_cents BIGINT NOT NULL,
+    PRIMARY KEY (product_id, observed_at)
+) PARTITION BY RANGE (observed_at);
+
+CREATE TABLE IF NOT EXISTS price_history_default PARTITION OF price_history DEFAULT;
+
+-- Last recorded price per product, so change detection does not have to search the partitions
+CREATE TABLE IF NOT EXISTS price_history_latest (
+    product_id BIGINT PRIMARY KEY,
+    observed_at TIMESTAMP NOT NULL,
+    price_cents BIGINT NOT NULL
+);
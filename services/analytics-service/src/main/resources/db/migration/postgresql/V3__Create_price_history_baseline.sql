@@ -0,0 +1,7 @@
+-- Last change of each product before the oldest retained price_history partition. Partitions past retention
+-- are dropped, but their last change per product still sets the price in effect when the retained history starts.
+CREATE TABLE IF NOT EXISTS price_history_baseline (
+    product_id BIGINT PRIMARY KEY,
+    observed_at TIMESTAMP NOT NULL,
+    price_cents BIGINT NOT NULL
+);
@@ -0,0 +1,21 @@
+package com.example.ferrazsergio.pricewatcher.analytics.repository;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+class H2PriceRepositoryTest extends PriceRepositoryTest {
+
+    private final DataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:price-repository;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @Override
+    protected DataSource dataSource() {
+        return dataSource;
+    }
+
+    @Override
+    protected String migrations() {
+        return "classpath:db/migration/h2";
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ferrazsergio.pricewatcher.analytics.repository;
+
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the PostgreSQL statements, partitioning included; skipped where Docker is not available
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresPriceRepositoryTest extends PriceRepositoryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    private DataSource dataSource;
+
+    @Override
+    protected DataSource dataSource() {
+        if (dataSource == null) {
+            dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                    POSTGRES.getPassword());
+        }
+        return dataSource;
+    }
+
+    @Override
+    protected String migrations() {
+        return "classpath:db/migration/postgresql";
+    }
+
+    @Test
+    void movesRowsOutOfTheDefaultPartitionIntoTheirMonth() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000));
+
+        historyRepository.createMonthlyPartition(YearMonth.from(DAY));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM price_history_default", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM price_history_p202601", Long.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void carriesThePriceInEffectIntoTheBaselineWhenDroppingPartitions() {
+        YearMonth january = YearMonth.from(DAY);
+        historyRepository.createMonthlyPartition(january);
+        historyRepository.createMonthlyPartition(january.plusMonths(1));
+        PricePoint lastOfJanuary = new PricePoint(PRODUCT, DAY.plusDays(5), 9000);
+        PricePoint february = new PricePoint(PRODUCT, DAY.plusMonths(1), 8000);
+        ingest(at(9, 10, 10000), lastOfJanuary, february);
+
+        assertThat(historyRepository.dropPartitionsBefore(january.plusMonths(1))).containsExactly("price_history_p202601");
+
+        assertThat(historyRepository.findChanges(PRODUCT, DAY.minusMonths(1), DAY.plusMonths(2)))
+                .containsExactly(february);
+        assertThat(historyRepository.findLastChangeBefore(PRODUCT, january.plusMonths(1).atDay(1).atStartOfDay()))
+                .contains(lastOfJanuary);
+        // Dropping again keeps the baseline
+        historyRepository.createMonthlyPartition(january.minusMonths(1));
+        historyRepository.dropPartitionsBefore(january.plusMonths(1));
+        assertThat(historyRepository.findLastChangeBefore(PRODUCT, DAY.plusMonths(1))).contains(lastOfJanuary);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.ferrazsergio.pricewatcher.analytics.repository;
+
+import com.example.ferrazsergio.pricewatcher.analytics.config.AnalyticsProperties;
+import com.example.ferrazsergio.pricewatcher.analytics.dto.PriceChartResponse;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PriceCandle;
+import com.example.ferrazsergio.pricewatcher.analytics.model.PricePoint;
+import com.example.ferrazsergio.pricewatcher.analytics.model.RollupResolution;
+import com.example.ferrazsergio.pricewatcher.analytics.service.PriceRollupService;
+import org.assertj.core.api.ListAssert;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Price history and rollup queries against a real database, run once per supported vendor
+ */
+abstract class PriceRepositoryTest {
+
+    protected static final long PRODUCT = 1L;
+    protected static final LocalDateTime DAY = LocalDateTime.of(2026, 1, 15, 0, 0);
+
+    protected JdbcTemplate jdbcTemplate;
+    protected PriceHistoryRepository historyRepository;
+    protected PriceRollupRepository rollupRepository;
+    private TransactionTemplate transactionTemplate;
+
+    protected abstract DataSource dataSource();
+
+    protected abstract String migrations();
+
+    @BeforeEach
+    void setUp() {
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource())
+                .locations(migrations())
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource());
+        historyRepository = new PriceHistoryRepository(jdbcTemplate);
+        rollupRepository = new PriceRollupRepository(jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource()));
+    }
+
+    @Test
+    void recordsOnlyObservationsThatChangeThePrice() {
+        List<PricePoint> recorded = ingest(at(9, 10, 10000), at(9, 20, 10000), at(10, 30, 8000), at(11, 0, 8000));
+
+        assertThat(recorded).containsExactly(at(9, 10, 10000), at(10, 30, 8000));
+        assertThat(historyRepository.findChanges(PRODUCT, DAY, DAY.plusDays(1)))
+                .containsExactly(at(9, 10, 10000), at(10, 30, 8000));
+    }
+
+    @Test
+    void recordsNothingWhenObservationsAreReplayed() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000));
+        List<PriceCandle> candles = candles(RollupResolution.HOUR);
+
+        assertThat(ingest(at(9, 10, 10000), at(10, 30, 8000))).isEmpty();
+        assertThat(ingest(at(9, 10, 10000))).isEmpty();
+
+        assertThat(historyRepository.findChanges(PRODUCT, DAY, DAY.plusDays(1))).hasSize(2);
+        assertThat(candles(RollupResolution.HOUR)).isEqualTo(candles);
+    }
+
+    @Test
+    void recordsALateObservationOnlyWhenItDiffersFromThePriceInEffect() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000));
+
+        assertThat(ingest(at(9, 30, 10000))).isEmpty();
+        assertThat(ingest(at(9, 50, 9000))).containsExactly(at(9, 50, 9000));
+
+        assertThat(historyRepository.findChanges(PRODUCT, DAY, DAY.plusDays(1)))
+                .containsExactly(at(9, 10, 10000), at(9, 50, 9000), at(10, 30, 8000));
+        // The latest price is left alone
+        assertThat(ingest(at(11, 0, 8000))).isEmpty();
+    }
+
+    @Test
+    void opensABucketAtThePreviousClose() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000));
+
+        assertThatHourlyCandles().containsExactly(
+                candle(9, 10000, 10000, 10000, 10000, 1),
+                candle(10, 10000, 10000, 8000, 8000, 1));
+        PriceCandle day = candles(RollupResolution.DAY).get(0);
+        assertThat(day.openCents()).isEqualTo(10000);
+        assertThat(day.lowCents()).isEqualTo(8000);
+        assertThat(day.sampleCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsTheCarriedOpenWhenALateChangeFallsInsideTheBucket() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000));
+
+        ingest(at(10, 10, 12000));
+
+        assertThatHourlyCandles().containsExactly(
+                candle(9, 10000, 10000, 10000, 10000, 1),
+                candle(10, 10000, 12000, 8000, 8000, 2));
+    }
+
+    @Test
+    void carriesALateChangeIntoTheOpenOfTheNextBucket() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000), at(12, 5, 8500));
+
+        ingest(at(10, 50, 9000));
+        ingest(at(8, 0, 7000));
+
+        assertThatHourlyCandles().containsExactly(
+                candle(8, 7000, 7000, 7000, 7000, 1),
+                candle(9, 7000, 10000, 7000, 10000, 1),
+                candle(10, 10000, 10000, 8000, 9000, 2),
+                candle(12, 9000, 9000, 8500, 8500, 1));
+    }
+
+    @Test
+    void findsThePriceInEffectInTheBaselineOnceItsHistoryIsGone() {
+        jdbcTemplate.update("INSERT INTO price_history_baseline (product_id, observed_at, price_cents) VALUES (?, ?, ?)",
+                PRODUCT, Timestamp.valueOf(DAY.minusMonths(3)), 12000);
+
+        assertThat(historyRepository.findLastChangeBefore(PRODUCT, DAY)).contains(
+                new PricePoint(PRODUCT, DAY.minusMonths(3), 12000));
+
+        ingest(at(9, 10, 10000));
+        assertThat(historyRepository.findLastChangeBefore(PRODUCT, DAY.plusDays(1))).contains(at(9, 10, 10000));
+    }
+
+    @Test
+    void chartsTheCarriedPriceInEachBucket() {
+        ingest(at(9, 10, 10000), at(10, 30, 8000));
+        PriceRollupService service = new PriceRollupService(rollupRepository, new AnalyticsProperties());
+
+        PriceChartResponse chart = service.getChart(PRODUCT, DAY.withHour(10), DAY.withHour(11),
+                RollupResolution.HOUR);
+
+        assertThat(chart.startPrice()).isEqualByComparingTo("100.00");
+        assertThat(chart.candles()).singleElement().satisfies(candle -> {
+            assertThat(candle.open()).isEqualByComparingTo("100.00");
+            assertThat(candle.high()).isEqualByComparingTo("100.00");
+            assertThat(candle.low()).isEqualByComparingTo("80.00");
+            assertThat(candle.close()).isEqualByComparingTo("80.00");
+        });
+    }
+
+    /**
+     * Records observations and folds the recorded changes into the rollups, as the ingest does
+     */
+    protected List<PricePoint> ingest(PricePoint... observations) {
+        return transactionTemplate.execute(status -> {
+            List<PricePoint> recorded = historyRepository.recordChanges(List.of(observations));
+            rollupRepository.apply(recorded);
+            return recorded;
+        });
+    }
+
+    protected static PricePoint at(int hour, int minute, long priceCents) {
+        return new PricePoint(PRODUCT, DAY.withHour(hour).withMinute(minute), priceCents);
+    }
+
+    private List<PriceCandle> candles(RollupResolution resolution) {
+        return rollupRepository.findCandles(PRODUCT, resolution, DAY, DAY.plusDays(1));
+    }
+
+    private ListAssert<PriceCandle> assertThatHourlyCandles() {
+        return assertThat(candles(RollupResolution.HOUR))
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("minEverCents");
+    }
+
+    /**
+     * An hourly candle; the lowest price ever is left out of comparisons, being whatever was known when the
+     * bucket was last updated
+     */
+    private static PriceCandle candle(int hour, long open, long high, long low, long close, int changes) {
+        return new PriceCandle(PRODUCT, DAY.withHour(hour), open, high, low, close, 0, changes);
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication(scanBasePackages = {
     "com.example.ferrazsergio.pricewatcher.gateway",
-    "com.example.ferrazsergio.pricewatcher.common"
+    "com.example.ferrazsergio.pricewatcher.common",
+    // Only the reactive-safe parts of the security module; its filters are servlet filters
+    "com.example.ferrazsergio.pricewatcher.security.jwt",
+    "com.example.ferrazsergio.pricewatcher.security.identity"
 })
 public class ApiGatewayApplication {
 
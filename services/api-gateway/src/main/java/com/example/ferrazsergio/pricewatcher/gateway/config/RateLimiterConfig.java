@@ -0,0 +1,37 @@
+package com.example.ferrazsergio.pricewatcher.gateway.config;
+
+import com.example.ferrazsergio.pricewatcher.security.identity.IdentityHeaders;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Rate limiting keys for the {@code RequestRateLimiter} filter
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimiterProperties.class)
+public class RateLimiterConfig {
+
+    public static final String USER_OR_IP_KEY_RESOLVER = "userOrIpKeyResolver";
+
+    /**
+     * Limits authenticated users by their id, as set by the identity filter, and anonymous clients by
+     * their address
+     */
+    @Bean(USER_OR_IP_KEY_RESOLVER)
+    public KeyResolver userOrIpKeyResolver() {
+        return exchange -> {
+            String userId = exchange.getRequest().getHeaders().getFirst(IdentityHeaders.USER_ID);
+            if (userId != null && !userId.isEmpty()) {
+                return Mono.just("user:" + userId);
+            }
+            InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+            return Mono.justOrEmpty(remoteAddress)
+                    .map(address -> "ip:" + address.getHostString());
+        };
+    }
+}
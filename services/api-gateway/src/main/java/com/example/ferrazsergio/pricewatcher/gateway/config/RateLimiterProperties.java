@@ -0,0 +1,50 @@
+package com.example.ferrazsergio.pricewatcher.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the gateway's hybrid rate limiter (prefix {@code rate-limiter}). The rates
+ * themselves are set per route with the {@code hybrid-rate-limiter.*} filter arguments.
+ */
+@Data
+@ConfigurationProperties(prefix = "rate-limiter")
+public class RateLimiterProperties {
+
+    /**
+     * How often the requests admitted locally are reconciled with Redis, in milliseconds
+     */
+    private long syncInterval = 100;
+
+    /**
+     * Requests a gateway instance may admit for a key without reporting them before it reconciles early.
+     * Together with the sync interval, this bounds how far the instances can exceed the configured rate
+     * between them.
+     */
+    private int syncTolerance = 20;
+
+    /**
+     * Most keys reconciled in a single Redis call
+     */
+    private int syncBatchSize = 500;
+
+    /**
+     * Longest wait for Redis during reconciliation, in milliseconds, before falling back to local limiting
+     */
+    private long redisTimeout = 50;
+
+    /**
+     * How long to limit locally only after Redis was slow or unavailable, in milliseconds
+     */
+    private long degradedBackoff = 5000;
+
+    /**
+     * Buckets of keys without requests for this long, in milliseconds, are dropped
+     */
+    private long idleTimeout = 60000;
+
+    /**
+     * Whether to add the X-RateLimit-* headers to responses
+     */
+    private boolean includeHeaders = true;
+}
@@ -0,0 +1,73 @@
+package com.example.ferrazsergio.pricewatcher.gateway.filter;
+
+import com.example.ferrazsergio.pricewatcher.security.identity.IdentityHeaders;
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
+import com.example.ferrazsergio.pricewatcher.security.jwt.VerifiedToken;
+import com.example.ferrazsergio.pricewatcher.security.jwt.VerifiedTokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Verifies the request's JWT once, at the gateway, and forwards the user to the services as signed
+ * identity headers (see {@link IdentityHeaders}), which they trust instead of verifying the token again.
+ * <p>
+ * Identity headers sent by the client are always removed. A token that fails verification is removed too,
+ * so the services treat the request as anonymous without repeating the check. Refresh tokens are passed
+ * through unchanged but do not identify a user. The gateway itself does not reject requests; access
+ * rules stay with the services.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdentityPropagationFilter implements GlobalFilter, Ordered {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final IdentityHeaders identityHeaders;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        Optional<VerifiedToken> verified = Optional.empty();
+        boolean hasToken = authorization != null && authorization.startsWith(BEARER_PREFIX);
+        if (hasToken) {
+            verified = verifiedTokenCache.verify(authorization.substring(BEARER_PREFIX.length()));
+            meterRegistry.counter("gateway.auth.tokens", "result", verified.isEmpty() ? "rejected"
+                    : verified.get().isRefreshToken() ? "refresh" : "verified").increment();
+        }
+        Map<String, String> identity = verified
+                .filter(token -> !token.isRefreshToken())
+                .map(token -> identityHeaders.sign(AuthenticatedUser.from(token)))
+                .orElse(Map.of());
+        boolean rejected = hasToken && verified.isEmpty();
+
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    IdentityHeaders.ALL.forEach(headers::remove);
+                    identity.forEach(headers::set);
+                    if (rejected) {
+                        headers.remove(HttpHeaders.AUTHORIZATION);
+                    }
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of the routing and rate limiting filters
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
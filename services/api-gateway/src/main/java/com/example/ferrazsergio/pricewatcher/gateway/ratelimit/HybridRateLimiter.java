@@ -0,0 +1,305 @@
+package com.example.ferrazsergio.pricewatcher.gateway.ratelimit;
+
+import com.example.ferrazsergio.pricewatcher.gateway.config.RateLimiterProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Token bucket rate limiter that decides every request in process and reconciles with Redis in the
+ * background, so Redis is never on the request path.
+ * <p>
+ * Each gateway instance keeps one bucket per route and key, refilled at the route's rate. Requests are
+ * admitted or denied from the local bucket alone and counted as pending. Every
+ * {@code rate-limiter.sync-interval} milliseconds, or as soon as a key has {@code sync-tolerance} pending
+ * requests, the pending counts of all keys are added to cluster-wide counters in Redis with a single
+ * script call. The growth of a counter beyond this instance's own requests is what the other instances
+ * admitted, and is taken from the local bucket too. The buckets of all instances therefore track one
+ * shared bucket, trailing it by at most one reconciliation.
+ * <p>
+ * When Redis fails or takes longer than {@code redis-timeout}, the instance limits locally only for
+ * {@code degraded-backoff} milliseconds; pending counts are kept and reported once Redis is back.
+ */
+@Slf4j
+@Primary
+@Component(HybridRateLimiter.BEAN_NAME)
+public class HybridRateLimiter extends AbstractRateLimiter<HybridRateLimiter.Config> implements DisposableBean {
+
+    public static final String BEAN_NAME = "hybridRateLimiter";
+    public static final String CONFIGURATION_PROPERTY_NAME = "hybrid-rate-limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    private static final String KEY_PREFIX = "request_rate_limiter.";
+
+    // Adds each delta to its counter and returns the new totals; ARGV holds the deltas, then the TTL
+    private static final String SYNC_SCRIPT = """
+            local totals = {}
+            for i, key in ipairs(KEYS) do
+              totals[i] = redis.call('INCRBY', key, ARGV[i])
+              redis.call('PEXPIRE', key, ARGV[#KEYS + 1])
+            end
+            return totals
+            """;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Long>> SYNC = (RedisScript) RedisScript.of(SYNC_SCRIPT, List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimiterProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer syncTimer;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean syncRequested = new AtomicBoolean();
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-limit-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long degradedUntil;
+
+    public HybridRateLimiter(ReactiveStringRedisTemplate redisTemplate, ConfigurationService configurationService,
+                             RateLimiterProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.syncTimer = Timer.builder("gateway.ratelimit.sync")
+                .description("Time taken to reconcile local rate limit buckets with Redis")
+                .register(meterRegistry);
+        meterRegistry.gauge("gateway.ratelimit.buckets", buckets, Map::size);
+        meterRegistry.gauge("gateway.ratelimit.degraded", this, limiter -> limiter.isDegraded() ? 1 : 0);
+        syncer.scheduleWithFixedDelay(this::sync, properties.getSyncInterval(), properties.getSyncInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        String key = routeId + "." + id;
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(KEY_PREFIX + k + ".consumed",
+                config.getBurstCapacity()));
+        Decision decision = bucket.tryConsume(config, System.nanoTime());
+        if (decision.pending() >= properties.getSyncTolerance() && syncRequested.compareAndSet(false, true)) {
+            syncer.execute(this::sync);
+        }
+        meterRegistry.counter("gateway.ratelimit.requests", "result",
+                decision.allowed() ? "allowed" : "denied").increment();
+        return Mono.just(new Response(decision.allowed(), headers(config, decision.remaining())));
+    }
+
+    private Config loadConfiguration(String routeId) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            config = getConfig().get(RouteDefinitionRouteLocator.DEFAULT_FILTERS);
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("No rate limiter configuration found for route " + routeId
+                    + " or defaultFilters");
+        }
+        return config;
+    }
+
+    private Map<String, String> headers(Config config, long remaining) {
+        if (!properties.isIncludeHeaders()) {
+            return Map.of();
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(REMAINING_HEADER, String.valueOf(remaining));
+        headers.put(REPLENISH_RATE_HEADER, String.valueOf(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()));
+        headers.put(REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+        return headers;
+    }
+
+    private boolean isDegraded() {
+        return System.currentTimeMillis() < degradedUntil;
+    }
+
+    private void sync() {
+        syncRequested.set(false);
+        if (isDegraded()) {
+            return;
+        }
+        try {
+            syncTimer.record(this::syncBuckets);
+        } catch (RuntimeException e) {
+            log.error("Rate limit reconciliation failed", e);
+        }
+    }
+
+    private void syncBuckets() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleTimeout());
+        List<Bucket> batch = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (bucket.isIdle(now, idleNanos)) {
+                buckets.remove(entry.getKey(), bucket);
+                continue;
+            }
+            // Buckets without pending requests are read too, to learn what the other instances admitted
+            batch.add(bucket);
+            deltas.add(bucket.takePending());
+            if (batch.size() == properties.getSyncBatchSize()) {
+                if (!send(batch, deltas)) {
+                    return;
+                }
+                batch.clear();
+                deltas.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch, deltas);
+        }
+    }
+
+    private boolean send(List<Bucket> batch, List<Long> deltas) {
+        List<String> keys = batch.stream().map(Bucket::redisKey).toList();
+        List<String> args = new ArrayList<>(deltas.size() + 1);
+        deltas.forEach(delta -> args.add(String.valueOf(delta)));
+        // Counters outlive the local buckets, so an instance never mistakes an expired counter for a new one
+        args.add(String.valueOf(2 * properties.getIdleTimeout()));
+        List<Long> totals;
+        try {
+            totals = redisTemplate.execute(SYNC, keys, args)
+                    .next()
+                    .block(Duration.ofMillis(properties.getRedisTimeout()));
+            if (totals == null || totals.size() != batch.size()) {
+                throw new IllegalStateException("Unexpected reply from the rate limit script: " + totals);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).restorePending(deltas.get(i));
+            }
+            degradedUntil = System.currentTimeMillis() + properties.getDegradedBackoff();
+            meterRegistry.counter("gateway.ratelimit.sync.failed").increment();
+            log.warn("Redis unavailable for rate limiting, limiting locally for {} ms: {}",
+                    properties.getDegradedBackoff(), e.getMessage());
+            return false;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).applyTotal(totals.get(i), deltas.get(i));
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        syncer.shutdownNow();
+        syncer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Rate of a route, set with the {@code hybrid-rate-limiter.*} filter arguments
+     */
+    @Data
+    public static class Config {
+        /**
+         * Tokens added to a bucket per second
+         */
+        private int replenishRate = 100;
+
+        /**
+         * Most tokens a bucket holds, which is the largest burst admitted at once
+         */
+        private int burstCapacity = 200;
+
+        /**
+         * Tokens each request takes
+         */
+        private int requestedTokens = 1;
+    }
+
+    record Decision(boolean allowed, long remaining, long pending) {
+    }
+
+    static final class Bucket {
+        private final String redisKey;
+        private double tokens;
+        private int burstCapacity;
+        private long refilledAt = System.nanoTime();
+        private volatile long lastUsed = refilledAt;
+        // Admitted locally and not yet reported to Redis
+        private long pending;
+        // Cluster-wide tokens taken as last read from Redis, or -1 before the first reconciliation
+        private long syncedTotal = -1;
+
+        Bucket(String redisKey, int burstCapacity) {
+            this.redisKey = redisKey;
+            this.burstCapacity = burstCapacity;
+            this.tokens = burstCapacity;
+        }
+
+        String redisKey() {
+            return redisKey;
+        }
+
+        synchronized Decision tryConsume(Config config, long now) {
+            burstCapacity = config.getBurstCapacity();
+            tokens = Math.min(burstCapacity,
+                    tokens + (now - refilledAt) / 1_000_000_000.0 * config.getReplenishRate());
+            refilledAt = now;
+            lastUsed = now;
+            boolean allowed = tokens >= config.getRequestedTokens();
+            if (allowed) {
+                tokens -= config.getRequestedTokens();
+                pending += config.getRequestedTokens();
+            }
+            return new Decision(allowed, Math.max(0, (long) tokens), pending);
+        }
+
+        boolean isIdle(long now, long idleNanos) {
+            return now - lastUsed > idleNanos;
+        }
+
+        synchronized long takePending() {
+            long taken = pending;
+            pending = 0;
+            return taken;
+        }
+
+        synchronized void restorePending(long delta) {
+            pending += delta;
+        }
+
+        /**
+         * Takes what the other instances admitted since the last reconciliation from this bucket
+         */
+        synchronized void applyTotal(long total, long delta) {
+            if (syncedTotal >= 0) {
+                long others = total - syncedTotal - delta;
+                if (others > 0) {
+                    // Allow a debt of up to one burst, repaid by the refill before admitting again
+                    tokens = Math.max(-burstCapacity, tokens - others);
+                }
+            }
+            syncedTotal = total;
+        }
+    }
+}
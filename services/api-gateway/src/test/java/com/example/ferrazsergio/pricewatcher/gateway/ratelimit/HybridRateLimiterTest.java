@@ -0,0 +1,105 @@
+package com.example.ferrazsergio.pricewatcher.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HybridRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final HybridRateLimiter.Config config = config(1, 3);
+
+    @Test
+    void admitsABurstThenDenies() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("key", 3);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryConsume(config, now).allowed()).isTrue();
+        }
+        HybridRateLimiter.Decision denied = bucket.tryConsume(config, now);
+
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.remaining()).isZero();
+        assertThat(denied.pending()).isEqualTo(3);
+    }
+
+    @Test
+    void refillsAtTheReplenishRateUpToTheBurstCapacity() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("key", 3);
+        long now = System.nanoTime();
+        drain(bucket, now);
+
+        assertThat(bucket.tryConsume(config, now + SECOND).allowed()).isTrue();
+        assertThat(bucket.tryConsume(config, now + SECOND).allowed()).isFalse();
+        assertThat(bucket.tryConsume(config, now + 100 * SECOND).remaining()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsPendingRequestsOnceAndKeepsThemWhenTheReportFails() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("key", 3);
+        long now = System.nanoTime();
+        bucket.tryConsume(config, now);
+        bucket.tryConsume(config, now);
+
+        long delta = bucket.takePending();
+        assertThat(delta).isEqualTo(2);
+        assertThat(bucket.takePending()).isZero();
+
+        bucket.restorePending(delta);
+        assertThat(bucket.tryConsume(config, now).pending()).isEqualTo(3);
+    }
+
+    @Test
+    void takesWhatOtherInstancesAdmittedFromTheLocalBucket() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("key", 3);
+        long now = System.nanoTime();
+        // The first reconciliation only learns the cluster-wide count
+        bucket.applyTotal(100, 0);
+        assertThat(bucket.tryConsume(config, now).remaining()).isEqualTo(2);
+
+        // Our own request plus two admitted elsewhere
+        bucket.applyTotal(103, bucket.takePending());
+
+        assertThat(bucket.tryConsume(config, now).allowed()).isFalse();
+    }
+
+    @Test
+    void limitsTheDebtFromOtherInstancesToOneBurst() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("key", 3);
+        long now = System.nanoTime();
+        bucket.applyTotal(0, 0);
+
+        bucket.applyTotal(1_000, 0);
+
+        // At one token per second, the debt of one burst is repaid after three seconds
+        assertThat(bucket.tryConsume(config, now + 3 * SECOND + SECOND / 2).allowed()).isFalse();
+        assertThat(bucket.tryConsume(config, now + 4 * SECOND + SECOND / 2).allowed()).isTrue();
+    }
+
+    @Test
+    void becomesIdleWhenUnused() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("key", 3);
+        long now = System.nanoTime();
+        bucket.tryConsume(config, now);
+
+        assertThat(bucket.isIdle(now + SECOND, 2 * SECOND)).isFalse();
+        assertThat(bucket.isIdle(now + 3 * SECOND, 2 * SECOND)).isTrue();
+    }
+
+    private void drain(HybridRateLimiter.Bucket bucket, long now) {
+        while (bucket.tryConsume(config, now).allowed()) {
+            // keep consuming
+        }
+    }
+
+    private static HybridRateLimiter.Config config(int replenishRate, int burstCapacity) {
+        HybridRateLimiter.Config config = new HybridRateLimiter.Config();
+        config.setReplenishRate(replenishRate);
+        config.setBurstCapacity(burstCapacity);
+        return config;
+    }
+}
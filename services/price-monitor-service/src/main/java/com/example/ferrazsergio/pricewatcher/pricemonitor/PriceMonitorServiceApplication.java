@@ -1,8 +1,10 @@
 package com.example.ferrazsergio.pricewatcher.pricemonitor;
 
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -18,6 +20,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 @EnableAsync
 @EnableRetry
+@EnableConfigurationProperties(PriceMonitorProperties.class)
 public class PriceMonitorServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,222 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for the price monitor (prefix {@code price-monitor})
+ */
+@Data
+@ConfigurationProperties(prefix = "price-monitor")
+public class PriceMonitorProperties {
+
+    private Scheduler scheduler = new Scheduler();
+    private Scraping scraping = new Scraping();
+    private Extraction extraction = new Extraction();
+    private Sharding sharding = new Sharding();
+    private WriteBack writeBack = new WriteBack();
+
+    @Data
+    public static class Scheduler {
+        private boolean enabled = true;
+
+        /**
+         * Check interval of a product without history, and of every product when adaptive scheduling is disabled
+         */
+        private long fixedDelay = 300000;
+        private long initialDelay = 60000;
+
+        /**
+         * How often products whose next check is due are collected and checked
+         */
+        private long tick = 30000;
+
+        /**
+         * How often the list of active products is reloaded from the database
+         */
+        private long catalogRefresh = 300000;
+
+        /**
+         * Number of products read per keyset page when reloading the catalog
+         */
+        private int catalogPageSize = 1000;
+
+        private Adaptive adaptive = new Adaptive();
+    }
+
+    /**
+     * Per-product check intervals driven by price volatility, distance to the target price and errors
+     */
+    @Data
+    public static class Adaptive {
+        private boolean enabled = true;
+        private long minInterval = 60000;
+        private long maxInterval = 6L * 60 * 60 * 1000;
+
+        /**
+         * Weight of the latest check in the moving average of how often the price changes
+         */
+        private double volatilityAlpha = 0.3;
+
+        /**
+         * Relative distance above the target price within which checks tighten towards the minimum interval
+         */
+        private double targetProximity = 0.10;
+
+        /**
+         * Random spread applied to each interval so products checked together drift apart
+         */
+        private double jitter = 0.1;
+    }
+
+    @Data
+    public static class Scraping {
+        private int timeout = 10000;
+        private int retryAttempts = 3;
+        private String userAgent;
+
+        /**
+         * Maximum number of body bytes read per page (0 = unlimited)
+         */
+        private int maxBodySize = 10 * 1024 * 1024;
+
+        /**
+         * Extract prices while tokenizing the body instead of building the full DOM, when the selector allows it
+         */
+        private boolean streaming = true;
+
+        /**
+         * Maximum number of concurrent requests per store when no override is configured
+         */
+        private int defaultStoreConcurrency = 8;
+
+        /**
+         * Per-store overrides, keyed by store name (e.g. AMAZON)
+         */
+        private Map<String, Integer> storeConcurrency = new HashMap<>();
+
+        private RateLimit rateLimit = new RateLimit();
+        private Conditional conditional = new Conditional();
+
+        public int concurrencyFor(String store) {
+            return Math.max(1, storeConcurrency.getOrDefault(store, defaultStoreConcurrency));
+        }
+    }
+
+    /**
+     * AIMD tuning for the per-store request rate and in-flight limit
+     */
+    @Data
+    public static class RateLimit {
+
+        /**
+         * Requests per second each store starts with
+         */
+        private double initialRate = 2.0;
+        private double minRate = 0.05;
+        private double maxRate = 20.0;
+
+        /**
+         * Requests per second added for every second of successful traffic
+         */
+        private double additiveIncrease = 0.5;
+
+        /**
+         * Factor applied to the rate and in-flight limit when a store answers 429/503
+         */
+        private double decreaseFactor = 0.5;
+
+        /**
+         * Responses slower than this gently reduce the rate
+         */
+        private long slowResponseThreshold = 5000;
+
+        /**
+         * Pause applied after a 429/503 without a Retry-After header
+         */
+        private long defaultCooldown = 30000;
+
+        /**
+         * Fraction of the scheduler window over which a store's requests are spread
+         */
+        private double windowFraction = 0.8;
+    }
+
+    /**
+     * Conditional fetching using stored ETag / Last-Modified validators and body hashes
+     */
+    @Data
+    public static class Conditional {
+        private boolean enabled = true;
+
+        /**
+         * How long validators are kept for a URL, in milliseconds
+         */
+        private long ttl = 7L * 24 * 60 * 60 * 1000;
+    }
+
+    /**
+     * Order in which price extractors are tried, by extractor name
+     */
+    @Data
+    public static class Extraction {
+        private List<String> defaultChain = new ArrayList<>(List.of("open-graph", "json-ld", "embedded-state", "css-selector"));
+
+        /**
+         * Per-store overrides, keyed by store name (e.g. AMAZON)
+         */
+        private Map<String, List<String>> storeChains = new HashMap<>();
+
+        /**
+         * Keys looked up, in order, inside embedded hydration state
+         */
+        private List<String> statePriceKeys = new ArrayList<>(List.of("price", "salePrice", "bestPrice", "finalPrice"));
+
+        public List<String> chainFor(String store) {
+            return storeChains.getOrDefault(store, defaultChain);
+        }
+    }
+
+    /**
+     * Distribution of products across replicas through virtual shards leased in Redis
+     */
+    @Data
+    public static class Sharding {
+        private boolean enabled = false;
+
+        /**
+         * Number of virtual shards; products are assigned by {@code id mod shards}. Must be equal on all replicas.
+         */
+        private int shards = 64;
+
+        private long heartbeatInterval = 10000;
+
+        /**
+         * Lifetime of membership and shard leases; must comfortably exceed the heartbeat interval
+         */
+        private long leaseTtl = 30000;
+
+        /**
+         * Identity of this replica, generated when not set
+         */
+        private String memberId;
+    }
+
+    /**
+     * Batching of check results written back to the products table
+     */
+    @Data
+    public static class WriteBack {
+        private int batchSize = 500;
+
+        /**
+         * Longest time a result may wait in the buffer, in milliseconds
+         */
+        private long maxLatency = 1000;
+    }
+}
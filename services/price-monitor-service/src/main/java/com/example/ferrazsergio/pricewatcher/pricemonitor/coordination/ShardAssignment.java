@@ -0,0 +1,30 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.coordination;
+
+import java.util.Set;
+
+/**
+ * Virtual shards this replica may check; a product belongs to shard {@code id mod shardCount}
+ */
+public record ShardAssignment(int shardCount, Set<Integer> shards) {
+
+    private static final ShardAssignment UNSHARDED = new ShardAssignment(1, Set.of(0));
+
+    /**
+     * Assignment of a replica that checks every product
+     */
+    public static ShardAssignment unsharded() {
+        return UNSHARDED;
+    }
+
+    public static ShardAssignment none(int shardCount) {
+        return new ShardAssignment(shardCount, Set.of());
+    }
+
+    public boolean isUnsharded() {
+        return shardCount == 1 && shards.contains(0);
+    }
+
+    public boolean includes(long productId) {
+        return shards.contains((int) Math.floorMod(productId, (long) shardCount));
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.coordination;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Splits the catalog between price-monitor replicas using virtual shards leased in Redis.
+ * <p>
+ * Every heartbeat the replica refreshes its membership in a sorted set scored by expiry time, computes
+ * the shards it should own by rendezvous hashing over the live members, releases leases it should no
+ * longer hold and acquires or renews the rest with {@code SET NX PX}. A shard is only checked by the
+ * replica holding its lease, so a joining replica takes over a shard only after the previous owner
+ * released it or its lease expired. Leases are considered lost a heartbeat before they can expire in
+ * Redis, so a replica that cannot reach Redis stops checking before another one can take over.
+ * <p>
+ * A lease can be lost while a check of one of its products is under way. Results are therefore fenced
+ * with {@link #owns}: one whose lease is gone by the time it would be written or published is dropped,
+ * and the shard's new owner checks the product again.
+ */
+@Slf4j
+@Component
+public class ShardCoordinator implements DisposableBean {
+
+    private static final String MEMBERS_KEY = "price-monitor:members";
+    private static final String LEASE_KEY_PREFIX = "price-monitor:shard:";
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PriceMonitorProperties.Sharding sharding;
+    private final String memberId;
+
+    private final Set<Integer> held = new HashSet<>();
+    private volatile Set<Integer> heldSnapshot = Set.of();
+    private volatile int liveMembers;
+    private volatile long leasesValidUntil;
+
+    public ShardCoordinator(StringRedisTemplate redisTemplate, PriceMonitorProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.sharding = properties.getSharding();
+        this.memberId = sharding.getMemberId() != null && !sharding.getMemberId().isBlank()
+                ? sharding.getMemberId()
+                : generateMemberId();
+
+        Gauge.builder("price.monitor.shards.owned", this, coordinator -> coordinator.heldSnapshot.size())
+                .description("Number of virtual shards leased by this replica")
+                .register(meterRegistry);
+        Gauge.builder("price.monitor.shards.members", this, coordinator -> coordinator.liveMembers)
+                .description("Number of live price-monitor replicas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Shards this replica may check right now
+     */
+    public ShardAssignment currentAssignment() {
+        if (!sharding.isEnabled()) {
+            return ShardAssignment.unsharded();
+        }
+        if (System.currentTimeMillis() >= leasesValidUntil) {
+            return ShardAssignment.none(sharding.getShards());
+        }
+        return new ShardAssignment(sharding.getShards(), heldSnapshot);
+    }
+
+    /**
+     * Whether this replica still holds the lease of the product's shard
+     */
+    public boolean owns(long productId) {
+        return currentAssignment().includes(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${price-monitor.sharding.heartbeat-interval:10000}")
+    public synchronized void heartbeat() {
+        if (!sharding.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            ZSetOperations<String, String> members = redisTemplate.opsForZSet();
+            members.add(MEMBERS_KEY, memberId, now + sharding.getLeaseTtl());
+            members.removeRangeByScore(MEMBERS_KEY, Double.NEGATIVE_INFINITY, now);
+            Set<String> live = members.rangeByScore(MEMBERS_KEY, now, Double.POSITIVE_INFINITY);
+            List<String> memberIds = live != null ? new ArrayList<>(live) : new ArrayList<>();
+            if (!memberIds.contains(memberId)) {
+                memberIds.add(memberId);
+            }
+            liveMembers = memberIds.size();
+
+            Set<Integer> desired = rendezvousShards(memberId, memberIds, sharding.getShards());
+            for (Iterator<Integer> it = held.iterator(); it.hasNext(); ) {
+                int shard = it.next();
+                if (!desired.contains(shard)) {
+                    release(shard);
+                    it.remove();
+                }
+            }
+            for (int shard : desired) {
+                boolean owned = held.contains(shard) ? renew(shard) : acquire(shard);
+                if (owned) {
+                    held.add(shard);
+                } else {
+                    held.remove(shard);
+                }
+            }
+            leasesValidUntil = leasesValidUntil(now, sharding);
+            heldSnapshot = Set.copyOf(held);
+        } catch (Exception e) {
+            log.warn("Shard heartbeat failed, holding {} shards: {}", held.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (!sharding.isEnabled()) {
+            return;
+        }
+        try {
+            for (int shard : held) {
+                release(shard);
+            }
+            redisTemplate.opsForZSet().remove(MEMBERS_KEY, memberId);
+        } catch (Exception e) {
+            log.debug("Unable to release shard leases on shutdown: {}", e.getMessage());
+        }
+        held.clear();
+        heldSnapshot = Set.of();
+    }
+
+    /**
+     * Time until which leases renewed by a heartbeat started at {@code heartbeatAt} are trusted: a heartbeat
+     * interval before they expire in Redis, so this replica stops checking before another can take over
+     */
+    static long leasesValidUntil(long heartbeatAt, PriceMonitorProperties.Sharding sharding) {
+        return heartbeatAt + sharding.getLeaseTtl() - sharding.getHeartbeatInterval();
+    }
+
+    /**
+     * Rendezvous hashing: each shard goes to the member with the highest score for it, so a member
+     * joining or leaving only moves the shards it wins or held
+     */
+    static Set<Integer> rendezvousShards(String memberId, List<String> memberIds, int shards) {
+        long[] memberHashes = memberIds.stream().mapToLong(ShardCoordinator::fnv1a).toArray();
+        long ownHash = fnv1a(memberId);
+        Set<Integer> desired = new HashSet<>();
+        for (int shard = 0; shard < shards; shard++) {
+            long best = Long.MIN_VALUE;
+            long winner = 0;
+            for (long memberHash : memberHashes) {
+                long score = mix(memberHash ^ (shard * 0x9E3779B97F4A7C15L));
+                if (score > best) {
+                    best = score;
+                    winner = memberHash;
+                }
+            }
+            if (winner == ownHash) {
+                desired.add(shard);
+            }
+        }
+        return desired;
+    }
+
+    private boolean acquire(int shard) {
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(LEASE_KEY_PREFIX + shard, memberId, Duration.ofMillis(sharding.getLeaseTtl()));
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    private boolean renew(int shard) {
+        Long renewed = redisTemplate.execute(RENEW, List.of(LEASE_KEY_PREFIX + shard),
+                memberId, String.valueOf(sharding.getLeaseTtl()));
+        return renewed != null && renewed == 1L;
+    }
+
+    private void release(int shard) {
+        redisTemplate.execute(RELEASE, List.of(LEASE_KEY_PREFIX + shard), memberId);
+    }
+
+    private static String generateMemberId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "price-monitor";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
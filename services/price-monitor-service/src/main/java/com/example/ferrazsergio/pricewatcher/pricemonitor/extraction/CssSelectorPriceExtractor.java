@@ -0,0 +1,96 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PriceParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.jsoup.select.Selector;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the price from the element matched by the product's CSS selector.
+ * <p>
+ * The element is found while the page is still being tokenized, without building the full DOM.
+ * jsoup's {@link StreamParser} emits each element once its closing tag has been seen, so this is only
+ * correct for selectors that do not depend on content after the element; pseudo-selectors that look
+ * at later siblings fall back to the full DOM.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CssSelectorPriceExtractor implements PriceExtractor {
+
+    private static final String DEFAULT_PRICE_SELECTOR = "[itemprop=price]";
+
+    private static final List<String> FORWARD_LOOKING_PSEUDOS = List.of(
+            ":last-child", ":last-of-type", ":nth-last-child", ":nth-last-of-type",
+            ":only-child", ":only-of-type"
+    );
+
+    private final PriceParser priceParser;
+    private final PriceMonitorProperties properties;
+
+    private final Map<String, Optional<Evaluator>> evaluators = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "css-selector";
+    }
+
+    @Override
+    public Optional<Evaluator> evaluator(MonitoredProduct product) {
+        return properties.getScraping().isStreaming() ? evaluatorFor(selectorOf(product)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<BigDecimal> priceOf(Element element, MonitoredProduct product) {
+        return Optional.of(priceOf(element));
+    }
+
+    @Override
+    public Optional<BigDecimal> extract(Document document, MonitoredProduct product) {
+        return Optional.ofNullable(document.selectFirst(selectorOf(product))).map(this::priceOf);
+    }
+
+    private static String selectorOf(MonitoredProduct product) {
+        return product.selector() != null && !product.selector().isBlank()
+                ? product.selector()
+                : DEFAULT_PRICE_SELECTOR;
+    }
+
+    /**
+     * Returns the compiled selector if it can be evaluated in streaming mode
+     */
+    Optional<Evaluator> evaluatorFor(String selector) {
+        return evaluators.computeIfAbsent(selector, this::compile);
+    }
+
+    private BigDecimal priceOf(Element element) {
+        return priceParser.parse(element.hasAttr("content") ? element.attr("content") : element.text());
+    }
+
+    private Optional<Evaluator> compile(String selector) {
+        String lower = selector.toLowerCase();
+        if (FORWARD_LOOKING_PSEUDOS.stream().anyMatch(lower::contains)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(QueryParser.parse(selector));
+        } catch (Selector.SelectorParseException e) {
+            log.debug("Selector cannot be compiled for streaming: {}", selector);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PriceParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * Reads the price from the hydration state single-page storefronts embed in the page
+ * ({@code __NEXT_DATA__}, {@code __PRELOADED_STATE__}, {@code __INITIAL_STATE__}).
+ * <p>
+ * The state is searched breadth-first for the keys in {@code price-monitor.extraction.state-price-keys},
+ * so the shallowest (main product) price wins over prices of related items nested deeper.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmbeddedStatePriceExtractor implements PriceExtractor {
+
+    private static final Evaluator STATE_SCRIPT = QueryParser.parse(
+            "script#__NEXT_DATA__, script:containsData(__PRELOADED_STATE__), script:containsData(__INITIAL_STATE__)");
+
+    private final ObjectMapper objectMapper;
+    private final PriceParser priceParser;
+    private final PriceMonitorProperties properties;
+
+    @Override
+    public String name() {
+        return "embedded-state";
+    }
+
+    @Override
+    public Optional<Evaluator> evaluator(MonitoredProduct product) {
+        return Optional.of(STATE_SCRIPT);
+    }
+
+    @Override
+    public Optional<BigDecimal> priceOf(Element script, MonitoredProduct product) {
+        try {
+            JsonNode state = readState(script);
+            return state != null ? findPrice(state) : Optional.empty();
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@code __NEXT_DATA__} holds plain JSON; the others assign an object literal to a global
+     */
+    private JsonNode readState(Element script) throws JsonProcessingException {
+        String data = script.data();
+        if (!"__NEXT_DATA__".equals(script.id())) {
+            int start = data.indexOf('{');
+            if (start < 0) {
+                return null;
+            }
+            data = data.substring(start);
+        }
+        // Trailing statements after the object are ignored by the parser
+        return objectMapper.readTree(data);
+    }
+
+    private Optional<BigDecimal> findPrice(JsonNode state) {
+        for (String key : properties.getExtraction().getStatePriceKeys()) {
+            Deque<JsonNode> pending = new ArrayDeque<>();
+            pending.add(state);
+            while (!pending.isEmpty()) {
+                JsonNode node = pending.poll();
+                JsonNode value = node.get(key);
+                if (value != null) {
+                    Optional<BigDecimal> price = toPrice(value);
+                    if (price.isPresent()) {
+                        return price;
+                    }
+                }
+                // Iterating an object node yields its field values
+                node.forEach(pending::add);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<BigDecimal> toPrice(JsonNode value) {
+        if (value.isNumber() && value.decimalValue().signum() > 0) {
+            return Optional.of(value.decimalValue());
+        }
+        if (value.isTextual()) {
+            try {
+                return Optional.of(priceParser.parse(value.asText()));
+            } catch (PriceParser.PriceParseException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+}
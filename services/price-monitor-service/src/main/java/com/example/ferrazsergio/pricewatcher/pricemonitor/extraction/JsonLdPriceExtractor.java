@@ -0,0 +1,102 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PriceParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Reads {@code offers.price} from schema.org {@code Product} JSON-LD blocks
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonLdPriceExtractor implements PriceExtractor {
+
+    private static final Evaluator JSON_LD = QueryParser.parse("script[type=application/ld+json]");
+
+    private final ObjectMapper objectMapper;
+    private final PriceParser priceParser;
+
+    @Override
+    public String name() {
+        return "json-ld";
+    }
+
+    @Override
+    public Optional<Evaluator> evaluator(MonitoredProduct product) {
+        return Optional.of(JSON_LD);
+    }
+
+    @Override
+    public Optional<BigDecimal> priceOf(Element script, MonitoredProduct product) {
+        try {
+            return findPrice(objectMapper.readTree(script.data()));
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<BigDecimal> findPrice(JsonNode node) {
+        if (node.isArray()) {
+            for (JsonNode item : node) {
+                Optional<BigDecimal> price = findPrice(item);
+                if (price.isPresent()) {
+                    return price;
+                }
+            }
+            return Optional.empty();
+        }
+        if (node.has("@graph")) {
+            return findPrice(node.get("@graph"));
+        }
+        if (hasType(node, "Product")) {
+            return offerPrice(node.path("offers"));
+        }
+        if (hasType(node, "Offer") || hasType(node, "AggregateOffer")) {
+            return offerPrice(node);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<BigDecimal> offerPrice(JsonNode offers) {
+        if (offers.isArray()) {
+            for (JsonNode offer : offers) {
+                Optional<BigDecimal> price = offerPrice(offer);
+                if (price.isPresent()) {
+                    return price;
+                }
+            }
+            return Optional.empty();
+        }
+        JsonNode price = offers.has("price") ? offers.get("price") : offers.path("lowPrice");
+        if (price.isNumber()) {
+            return Optional.of(price.decimalValue());
+        }
+        if (price.isTextual() && !price.asText().isBlank()) {
+            return Optional.of(priceParser.parse(price.asText()));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean hasType(JsonNode node, String type) {
+        JsonNode types = node.path("@type");
+        if (types.isArray()) {
+            for (JsonNode candidate : types) {
+                if (type.equals(candidate.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return type.equals(types.asText());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PriceParser;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Reads the price from OpenGraph / microdata {@code <meta>} tags, which usually sit in the document head
+ */
+@Component
+@RequiredArgsConstructor
+public class OpenGraphPriceExtractor implements PriceExtractor {
+
+    private static final Evaluator PRICE_META = QueryParser.parse(
+            "meta[property=og:price:amount], meta[property=product:price:amount], meta[itemprop=price][content]");
+    private static final Evaluator HEAD = QueryParser.parse("head");
+
+    private final PriceParser priceParser;
+
+    @Override
+    public String name() {
+        return "open-graph";
+    }
+
+    @Override
+    public Optional<Evaluator> evaluator(MonitoredProduct product) {
+        return Optional.of(PRICE_META);
+    }
+
+    @Override
+    public Evaluator stopAt() {
+        return HEAD;
+    }
+
+    @Override
+    public Optional<BigDecimal> priceOf(Element meta, MonitoredProduct product) {
+        String content = meta.attr("content");
+        return content.isBlank() ? Optional.empty() : Optional.of(priceParser.parse(content));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.FetchValidatorCache;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.FetchedPage;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.security.MessageDigest;
+
+/**
+ * Body of a fetched product page, tokenized once for all extractors of a {@link PriceExtractorChain}.
+ * <p>
+ * The body is hashed while it is streamed from the network, so a page read to the end has its hash
+ * without a second pass. Pages whose body was read in full at the last successful check are compared
+ * against that hash before tokenizing (see {@link #sameBodyAsLastCheck()}).
+ */
+public class PageContent {
+
+    private final FetchedPage page;
+    private final MonitoredProduct product;
+    private final FetchValidatorCache.Validators previous;
+    private final MessageDigest digest = FetchValidatorCache.bodyDigest();
+
+    private byte[] prefetched;
+    private String bodyHash;
+
+    public PageContent(FetchedPage page, MonitoredProduct product, FetchValidatorCache.Validators previous) {
+        this.page = page;
+        this.product = product;
+        this.previous = previous;
+    }
+
+    public MonitoredProduct product() {
+        return product;
+    }
+
+    /**
+     * Whether the full body is byte-identical to the one seen at the last successful check. Only pages read
+     * to the end at that check have a hash to compare; for those the body is read here, ahead of tokenizing,
+     * since a match makes tokenizing unnecessary.
+     */
+    public boolean sameBodyAsLastCheck() throws IOException {
+        if (previous == null || previous.bodyHash() == null) {
+            return false;
+        }
+        if (prefetched == null) {
+            try (InputStream in = hashingStream()) {
+                prefetched = in.readAllBytes();
+            }
+        }
+        return previous.bodyHash().equals(bodyHash);
+    }
+
+    /**
+     * Starts tokenizing the page, from the bytes read by {@link #sameBodyAsLastCheck()} if any, then from
+     * the network
+     */
+    public StreamParser streamParser() {
+        InputStream in = prefetched != null ? new ByteArrayInputStream(prefetched) : hashingStream();
+        return new StreamParser(Parser.htmlParser()).parse(new InputStreamReader(in, page.charset()), page.url());
+    }
+
+    /**
+     * Whether the body was read to the end rather than tokenizing stopping early
+     */
+    public boolean isFullyRead() {
+        return bodyHash != null;
+    }
+
+    public long bytesRead() {
+        return page.bytesRead();
+    }
+
+    /**
+     * Hash of the full body, or null when it was not read to the end
+     */
+    public String bodyHash() {
+        return bodyHash;
+    }
+
+    private InputStream hashingStream() {
+        return new FilterInputStream(page.bodyStream()) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    digest.update((byte) b);
+                } else {
+                    finish();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    digest.update(buffer, offset, n);
+                } else if (n < 0) {
+                    finish();
+                }
+                return n;
+            }
+
+            private void finish() {
+                if (bodyHash == null) {
+                    bodyHash = FetchValidatorCache.hash(digest);
+                }
+            }
+
+            @Override
+            public void close() {
+                // The connection is released by the FetchedPage owner
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * One strategy for finding a product's price in a page, tried in chain order by {@link PriceExtractorChain}.
+ * <p>
+ * The extractors of a chain share a single tokenizing pass over the page: each names the elements it
+ * reads through {@link #evaluator}, and is handed every such element as soon as it has been parsed.
+ */
+public interface PriceExtractor {
+
+    /**
+     * Name used in {@code price-monitor.extraction} chains and metric tags
+     */
+    String name();
+
+    /**
+     * Elements the price is read from, or empty when this extractor can only search the full DOM
+     * (see {@link #extract(Document, MonitoredProduct)})
+     */
+    Optional<Evaluator> evaluator(MonitoredProduct product);
+
+    /**
+     * Elements after which no element this extractor reads can follow, such as {@code head}, or null when
+     * they may appear anywhere in the page
+     */
+    default Evaluator stopAt() {
+        return null;
+    }
+
+    /**
+     * Reads the price from an element matching {@link #evaluator}, or returns empty to keep looking
+     */
+    Optional<BigDecimal> priceOf(Element element, MonitoredProduct product);
+
+    /**
+     * Searches the fully parsed page; only called when {@link #evaluator} is empty
+     */
+    default Optional<BigDecimal> extract(Document document, MonitoredProduct product) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PriceParser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.CombiningEvaluator;
+import org.jsoup.select.Evaluator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Finds a product's price with the store's {@link PriceExtractor}s, in the order configured under
+ * {@code price-monitor.extraction}: the first extractor in that order to find a price wins.
+ * <p>
+ * A page whose body is byte-identical to the one at the last successful check keeps its current price
+ * without being tokenized. Otherwise the page is tokenized once, and every parsed element is offered to
+ * all extractors that read elements like it. Tokenizing stops as soon as the winner is known, i.e. an
+ * extractor has found a price and every extractor ahead of it has given up; extractors that can only
+ * search the full DOM get the document once the whole page has been parsed.
+ * <p>
+ * Structured data (meta tags, JSON-LD, hydration state) is tried before the product's CSS selector by
+ * default since it survives layout changes and usually sits early in the page. An extractor ahead of
+ * the winner that misses keeps the whole body being read, so stores known to lack a source should drop
+ * it from their chain ({@code price-monitor.extraction.store-chains}). The outcome of the winner and of
+ * every extractor ahead of it is counted per store, tagged with {@code result=hit|miss|error}.
+ */
+@Slf4j
+@Component
+public class PriceExtractorChain {
+
+    private final Map<String, PriceExtractor> extractorsByName = new LinkedHashMap<>();
+    private final Map<String, List<PriceExtractor>> chainsByStore = new ConcurrentHashMap<>();
+    private final PriceMonitorProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public PriceExtractorChain(List<PriceExtractor> extractors, PriceMonitorProperties properties,
+                               MeterRegistry meterRegistry) {
+        extractors.forEach(extractor -> extractorsByName.put(extractor.name(), extractor));
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public BigDecimal extract(PageContent page) throws IOException {
+        String store = page.product().store();
+        List<PriceExtractor> chain = chainFor(store);
+
+        long startedAt = System.nanoTime();
+        try {
+            if (page.sameBodyAsLastCheck() && page.product().currentPrice() != null) {
+                meterRegistry.counter("price.monitor.fetch.conditional", "outcome", "hash_match").increment();
+                return page.product().currentPrice();
+            }
+            Optional<BigDecimal> price = extractInOnePass(chain, page);
+            if (price.isPresent()) {
+                return price.get().setScale(2, RoundingMode.HALF_UP);
+            }
+        } finally {
+            recordExtraction(store, page, System.nanoTime() - startedAt);
+        }
+        throw new PriceParser.PriceParseException("No price found by extractors: "
+                + chain.stream().map(PriceExtractor::name).toList());
+    }
+
+    private Optional<BigDecimal> extractInOnePass(List<PriceExtractor> chain, PageContent page) throws IOException {
+        MonitoredProduct product = page.product();
+        List<Attempt> attempts = new ArrayList<>(chain.size());
+        List<Evaluator> targets = new ArrayList<>();
+        for (PriceExtractor extractor : chain) {
+            Attempt attempt = new Attempt(extractor, extractor.evaluator(product).orElse(null));
+            attempts.add(attempt);
+            if (attempt.evaluator != null) {
+                targets.add(attempt.evaluator);
+                if (attempt.stopAt != null) {
+                    targets.add(attempt.stopAt);
+                }
+            }
+        }
+
+        try (StreamParser parser = page.streamParser()) {
+            if (!targets.isEmpty()) {
+                Evaluator target = targets.size() == 1 ? targets.get(0) : new CombiningEvaluator.Or(targets);
+                Element element;
+                while ((element = parser.selectNext(target)) != null) {
+                    for (Attempt attempt : attempts) {
+                        attempt.offer(parser.document(), element, product);
+                    }
+                    Optional<Attempt> winner = winner(attempts);
+                    if (winner.isPresent() || attempts.stream().noneMatch(Attempt::isPending)) {
+                        return finish(attempts, winner, product);
+                    }
+                }
+            }
+
+            // The whole page has been parsed: extractors still looking have missed, and those that need
+            // the full DOM search it now
+            Document document = null;
+            for (Attempt attempt : attempts) {
+                if (attempt.isPending() && attempt.evaluator == null) {
+                    if (document == null) {
+                        document = parser.complete();
+                    }
+                    attempt.search(document, product);
+                }
+                attempt.giveUp();
+            }
+            return finish(attempts, winner(attempts), product);
+        }
+    }
+
+    /**
+     * The first extractor in chain order that found a price, once every extractor ahead of it has missed
+     */
+    private static Optional<Attempt> winner(List<Attempt> attempts) {
+        for (Attempt attempt : attempts) {
+            if (attempt.isPending()) {
+                return Optional.empty();
+            }
+            if (attempt.price.isPresent()) {
+                return Optional.of(attempt);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<BigDecimal> finish(List<Attempt> attempts, Optional<Attempt> winner, MonitoredProduct product) {
+        for (Attempt attempt : attempts) {
+            if (attempt.isPending()) {
+                // Not needed once a winner ahead of it is known
+                continue;
+            }
+            meterRegistry.counter("price.monitor.extractor.results", "store", product.store(),
+                    "extractor", attempt.extractor.name(), "result", attempt.result).increment();
+            if (attempt == winner.orElse(null)) {
+                break;
+            }
+        }
+        return winner.flatMap(attempt -> attempt.price);
+    }
+
+    private List<PriceExtractor> chainFor(String store) {
+        return chainsByStore.computeIfAbsent(store, key -> {
+            List<PriceExtractor> chain = new ArrayList<>();
+            for (String name : properties.getExtraction().chainFor(key)) {
+                PriceExtractor extractor = extractorsByName.get(name);
+                if (extractor != null) {
+                    chain.add(extractor);
+                } else {
+                    log.warn("Unknown price extractor '{}' configured for store {}", name, key);
+                }
+            }
+            return chain;
+        });
+    }
+
+    private void recordExtraction(String store, PageContent page, long durationNanos) {
+        String mode = page.isFullyRead() ? "dom" : "streaming";
+        DistributionSummary.builder("price.monitor.extraction.bytes")
+                .description("Response body bytes read to extract a price")
+                .baseUnit("bytes")
+                .tag("store", store)
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(page.bytesRead());
+        Timer.builder("price.monitor.extraction.duration")
+                .description("Time taken to read and parse a page body until a price was found")
+                .tag("store", store)
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Progress of one extractor during the pass; {@code result} stays null while it is still looking
+     */
+    private static final class Attempt {
+
+        private final PriceExtractor extractor;
+        private final Evaluator evaluator;
+        private final Evaluator stopAt;
+        private Optional<BigDecimal> price = Optional.empty();
+        private String result;
+
+        Attempt(PriceExtractor extractor, Evaluator evaluator) {
+            this.extractor = extractor;
+            this.evaluator = evaluator;
+            this.stopAt = evaluator != null ? extractor.stopAt() : null;
+        }
+
+        boolean isPending() {
+            return result == null;
+        }
+
+        void offer(Element root, Element element, MonitoredProduct product) {
+            if (!isPending() || evaluator == null) {
+                return;
+            }
+            if (stopAt != null && stopAt.matches(root, element)) {
+                result = "miss";
+            } else if (evaluator.matches(root, element)) {
+                decide(() -> extractor.priceOf(element, product), product);
+            }
+        }
+
+        void search(Document document, MonitoredProduct product) {
+            decide(() -> extractor.extract(document, product), product);
+        }
+
+        void giveUp() {
+            if (isPending()) {
+                result = "miss";
+            }
+        }
+
+        private void decide(Supplier<Optional<BigDecimal>> extraction, MonitoredProduct product) {
+            try {
+                price = extraction.get();
+                if (price.isPresent()) {
+                    result = "hit";
+                }
+            } catch (PriceParser.PriceParseException e) {
+                result = "error";
+                log.debug("Extractor {} failed for product {}: {}", extractor.name(), product.id(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of a product row that is due for price monitoring
+ */
+public record MonitoredProduct(
+        Long id,
+        String name,
+        String url,
+        String productKey,
+        String store,
+        String selector,
+        BigDecimal currentPrice,
+        BigDecimal targetPrice,
+        Long userId
+) {
+
+    /**
+     * Identity of the page to fetch; products sharing it are checked with a single request
+     */
+    public String pageKey() {
+        return productKey != null ? productKey : url;
+    }
+
+    public MonitoredProduct withCurrentPrice(BigDecimal price) {
+        return new MonitoredProduct(id, name, url, productKey, store, selector, price, targetPrice, userId);
+    }
+}
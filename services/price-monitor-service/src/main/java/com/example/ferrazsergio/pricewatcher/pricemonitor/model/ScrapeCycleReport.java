@@ -0,0 +1,26 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.model;
+
+import java.time.Duration;
+
+/**
+ * Summary of a completed monitoring cycle
+ */
+public record ScrapeCycleReport(
+        int checked,
+        int changed,
+        int failed,
+        Duration p50Latency,
+        Duration p99Latency,
+        Duration duration
+) {
+
+    public static ScrapeCycleReport empty() {
+        return new ScrapeCycleReport(0, 0, 0, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("checked=%d, changed=%d, failed=%d, p50=%dms, p99=%dms, duration=%dms",
+                checked, changed, failed, p50Latency.toMillis(), p99Latency.toMillis(), duration.toMillis());
+    }
+}
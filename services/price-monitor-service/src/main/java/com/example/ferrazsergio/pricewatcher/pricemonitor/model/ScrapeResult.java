@@ -0,0 +1,38 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of checking a single product
+ */
+public record ScrapeResult(
+        MonitoredProduct product,
+        Outcome outcome,
+        BigDecimal price,
+        long latencyNanos,
+        String error
+) {
+
+    public enum Outcome {
+        UNCHANGED, CHANGED, FAILED
+    }
+
+    public static ScrapeResult success(MonitoredProduct product, BigDecimal price, long latencyNanos) {
+        Outcome outcome = product.currentPrice() != null && product.currentPrice().compareTo(price) == 0
+                ? Outcome.UNCHANGED
+                : Outcome.CHANGED;
+        return new ScrapeResult(product, outcome, price, latencyNanos, null);
+    }
+
+    public static ScrapeResult failure(MonitoredProduct product, String error, long latencyNanos) {
+        return new ScrapeResult(product, Outcome.FAILED, null, latencyNanos, error);
+    }
+
+    public boolean isChanged() {
+        return outcome == Outcome.CHANGED;
+    }
+
+    public boolean isFailed() {
+        return outcome == Outcome.FAILED;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.repository;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.coordination.ShardAssignment;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JDBC access to the products table owned by product-service
+ */
+@Repository
+@RequiredArgsConstructor
+public class MonitoredProductRepository {
+
+    private static final RowMapper<MonitoredProduct> ROW_MAPPER = (rs, rowNum) -> new MonitoredProduct(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("url"),
+            rs.getString("product_key"),
+            rs.getString("store"),
+            rs.getString("selector"),
+            rs.getBigDecimal("current_price"),
+            rs.getBigDecimal("target_price"),
+            rs.getLong("user_id")
+    );
+
+    // PostgreSQL accepts at most 65535 bind parameters per statement; each row takes two, plus the timestamp
+    private static final int MAX_ROWS_PER_UPDATE = (65535 - 1) / 2;
+
+    private static final String ACTIVE_PRODUCTS_SQL =
+            "SELECT id, name, url, product_key, store, selector, current_price, target_price, user_id " +
+            "FROM products WHERE status = 'ACTIVE' AND active = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    /**
+     * Streams active products of the assigned shards in keyset pages ordered by id, so only one page
+     * of narrow rows is held at a time and no cursor stays open between pages
+     */
+    public Stream<MonitoredProduct> streamActiveProductsForMonitoring(ShardAssignment assignment, int pageSize) {
+        if (assignment.shards().isEmpty()) {
+            return Stream.empty();
+        }
+        StringBuilder sql = new StringBuilder(ACTIVE_PRODUCTS_SQL).append(" AND id > ?");
+        if (!assignment.isUnsharded()) {
+            sql.append(" AND MOD(id, ?) IN (")
+                    .append(String.join(", ", Collections.nCopies(assignment.shards().size(), "?")))
+                    .append(")");
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+
+        return Stream.iterate(
+                        findPage(sql.toString(), assignment, 0L, pageSize),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < pageSize
+                                ? List.of()
+                                : findPage(sql.toString(), assignment, page.get(page.size() - 1).id(), pageSize))
+                .flatMap(List::stream);
+    }
+
+    private List<MonitoredProduct> findPage(String sql, ShardAssignment assignment, long afterId, int pageSize) {
+        return jdbcTemplate.query(sql, ps -> {
+            ps.setFetchSize(pageSize);
+            int index = 1;
+            ps.setLong(index++, afterId);
+            if (!assignment.isUnsharded()) {
+                ps.setInt(index++, assignment.shardCount());
+                for (int shard : assignment.shards()) {
+                    ps.setInt(index++, shard);
+                }
+            }
+            ps.setInt(index, pageSize);
+        }, ROW_MAPPER);
+    }
+
+    public List<Long> findIdsWithLastError() {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE status = 'ACTIVE' AND active = true AND last_error IS NOT NULL", Long.class);
+    }
+
+    /**
+     * Writes a batch of check results: prices and cleared errors for successes, errors for failures.
+     * On PostgreSQL the successes are applied with multi-row {@code UPDATE ... FROM (VALUES ...)} statements
+     * of up to {@value #MAX_ROWS_PER_UPDATE} rows, elsewhere with a JDBC batch.
+     */
+    public void updateCheckResults(List<ScrapeResult> results) {
+        Timestamp checkedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<ScrapeResult> successes = results.stream().filter(result -> !result.isFailed()).toList();
+        List<ScrapeResult> failures = results.stream().filter(ScrapeResult::isFailed).toList();
+
+        if (!successes.isEmpty()) {
+            if (isPostgres()) {
+                for (int from = 0; from < successes.size(); from += MAX_ROWS_PER_UPDATE) {
+                    updatePricesInOneStatement(
+                            successes.subList(from, Math.min(successes.size(), from + MAX_ROWS_PER_UPDATE)), checkedAt);
+                }
+            } else {
+                jdbcTemplate.batchUpdate(
+                        "UPDATE products SET current_price = ?, last_checked_at = ?, last_error = NULL WHERE id = ?",
+                        successes, successes.size(), (ps, result) -> {
+                            ps.setBigDecimal(1, result.price());
+                            ps.setTimestamp(2, checkedAt);
+                            ps.setLong(3, result.product().id());
+                        });
+            }
+        }
+        if (!failures.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE products SET last_checked_at = ?, last_error = ? WHERE id = ?",
+                    failures, failures.size(), (ps, result) -> {
+                        ps.setTimestamp(1, checkedAt);
+                        ps.setString(2, result.error());
+                        ps.setLong(3, result.product().id());
+                    });
+        }
+    }
+
+    private void updatePricesInOneStatement(List<ScrapeResult> successes, Timestamp checkedAt) {
+        String rows = String.join(", ", Collections.nCopies(successes.size(),
+                "(CAST(? AS BIGINT), CAST(? AS NUMERIC(10,2)))"));
+        List<Object> args = new ArrayList<>(successes.size() * 2 + 1);
+        args.add(checkedAt);
+        for (ScrapeResult result : successes) {
+            args.add(result.product().id());
+            args.add(result.price());
+        }
+        jdbcTemplate.update("UPDATE products AS p SET current_price = v.price, last_checked_at = ?, last_error = NULL " +
+                "FROM (VALUES " + rows + ") AS v(id, price) WHERE p.id = v.id", args.toArray());
+    }
+
+    private boolean isPostgres() {
+        Boolean postgres = this.postgres;
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+            this.postgres = postgres;
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how long to wait before checking a product again.
+ * <p>
+ * The interval starts at {@code price-monitor.scheduler.fixed-delay} divided by the product's change
+ * rate, so a price that never moves backs off geometrically towards the maximum interval while a
+ * volatile one stays near the base interval. Within {@code target-proximity} of the target price the
+ * interval shrinks linearly with the remaining distance, and consecutive failures back off
+ * exponentially instead. The result is clamped to [min-interval, max-interval] and jittered.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckIntervalPolicy {
+
+    private final PriceMonitorProperties properties;
+
+    public long nextInterval(MonitoredProduct product, double changeRate, int consecutiveFailures) {
+        PriceMonitorProperties.Scheduler scheduler = properties.getScheduler();
+        PriceMonitorProperties.Adaptive adaptive = scheduler.getAdaptive();
+        long base = scheduler.getFixedDelay();
+        if (!adaptive.isEnabled()) {
+            return base;
+        }
+
+        double interval;
+        if (consecutiveFailures > 0) {
+            interval = base * Math.pow(2, Math.min(consecutiveFailures - 1, 16));
+        } else {
+            interval = base / Math.max(changeRate, 1e-6);
+            double distance = distanceToTarget(product);
+            if (distance >= 0 && distance < adaptive.getTargetProximity()) {
+                interval = Math.min(interval, base) * (distance / adaptive.getTargetProximity());
+            }
+        }
+
+        interval = Math.max(adaptive.getMinInterval(), Math.min(adaptive.getMaxInterval(), interval));
+        double jitter = adaptive.getJitter();
+        if (jitter > 0) {
+            interval *= 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        }
+        return (long) interval;
+    }
+
+    /**
+     * Relative distance of the current price above the target, or -1 when not applicable
+     */
+    private static double distanceToTarget(MonitoredProduct product) {
+        BigDecimal current = product.currentPrice();
+        BigDecimal target = product.targetPrice();
+        if (current == null || target == null || target.signum() <= 0 || current.compareTo(target) <= 0) {
+            return -1;
+        }
+        return current.subtract(target).divide(target, 6, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.coordination.ShardCoordinator;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.repository.MonitoredProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Buffers check results and writes them back to the products table in batches.
+ * <p>
+ * A batch is flushed once it reaches {@code price-monitor.write-back.batch-size} results or its oldest
+ * result has waited {@code max-latency} milliseconds. Successful checks that did not change the price
+ * are skipped, unless the product's last recorded check failed and its error must be cleared; as a
+ * consequence {@code last_checked_at} reflects the last change or failure rather than every check.
+ * <p>
+ * The buffer holds one result per product, the latest, except that a failure does not replace a price
+ * change that is still waiting to be written. A batch that fails to be written is merged back into the
+ * buffer and retried with the next flush: the scheduler already treats the new price as current, so a
+ * dropped change would otherwise never be written. Batches are drained and written one at a time, so a
+ * failed batch is merged back before any newer result of its products is drained, and can never overwrite
+ * it. Results of products whose shard lease was lost meanwhile are dropped instead (see
+ * {@link ShardCoordinator#owns}).
+ */
+@Slf4j
+@Component
+public class CheckResultWriter implements DisposableBean {
+
+    private final MonitoredProductRepository productRepository;
+    private final ShardCoordinator shardCoordinator;
+    private final PriceMonitorProperties.WriteBack writeBack;
+    private final MeterRegistry meterRegistry;
+    private final Timer flushTimer;
+
+    /**
+     * Products whose last written result was a failure, so their next success must be written
+     */
+    private final Set<Long> failing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Held from draining a batch until it is written or merged back
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Map<Long, ScrapeResult> buffer = new LinkedHashMap<>();
+    private long oldestBufferedAt;
+
+    public CheckResultWriter(MonitoredProductRepository productRepository, ShardCoordinator shardCoordinator,
+                             PriceMonitorProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.shardCoordinator = shardCoordinator;
+        this.writeBack = properties.getWriteBack();
+        this.meterRegistry = meterRegistry;
+        this.flushTimer = Timer.builder("price.monitor.writeback.flush")
+                .description("Time taken to write a batch of check results")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the products whose last check failed, so an unchanged price still clears their error
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFailingProducts() {
+        try {
+            failing.addAll(productRepository.findIdsWithLastError());
+        } catch (Exception e) {
+            log.warn("Unable to load products with a recorded error: {}", e.getMessage());
+        }
+    }
+
+    public void write(ScrapeResult result) {
+        if (!result.isChanged() && !result.isFailed() && !failing.contains(result.product().id())) {
+            meterRegistry.counter("price.monitor.writeback.skipped").increment();
+            return;
+        }
+
+        boolean full;
+        synchronized (this) {
+            if (buffer.isEmpty()) {
+                oldestBufferedAt = System.currentTimeMillis();
+            }
+            buffer.merge(result.product().id(), result, CheckResultWriter::latest);
+            full = buffer.size() >= writeBack.getBatchSize();
+        }
+        if (full) {
+            flushWhen(() -> buffer.size() >= writeBack.getBatchSize());
+        }
+    }
+
+    /**
+     * Writes out a batch whose oldest result has waited longer than the configured latency
+     */
+    @Scheduled(fixedDelayString = "${price-monitor.write-back.max-latency:1000}")
+    public void flushIfStale() {
+        flushWhen(() -> System.currentTimeMillis() - oldestBufferedAt >= writeBack.getMaxLatency());
+    }
+
+    /**
+     * Writes out everything buffered so far
+     */
+    public void flush() {
+        flushWhen(() -> true);
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * Drains and writes the buffer if it is not empty and {@code due}, which is checked holding the buffer
+     */
+    private void flushWhen(BooleanSupplier due) {
+        flushLock.lock();
+        try {
+            List<ScrapeResult> batch;
+            synchronized (this) {
+                if (buffer.isEmpty() || !due.getAsBoolean()) {
+                    return;
+                }
+                batch = drain();
+            }
+            flush(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private List<ScrapeResult> drain() {
+        List<ScrapeResult> drained = new ArrayList<>(buffer.values());
+        buffer = new LinkedHashMap<>();
+        return drained;
+    }
+
+    /**
+     * Puts a batch that could not be written back in the buffer, behind any newer result of its products
+     */
+    private synchronized void requeue(List<ScrapeResult> batch) {
+        if (buffer.isEmpty()) {
+            oldestBufferedAt = System.currentTimeMillis();
+        }
+        for (ScrapeResult result : batch) {
+            buffer.merge(result.product().id(), result, (newer, older) -> latest(older, newer));
+        }
+    }
+
+    private static ScrapeResult latest(ScrapeResult older, ScrapeResult newer) {
+        return newer.isFailed() && older.isChanged() ? older : newer;
+    }
+
+    private void flush(List<ScrapeResult> batch) {
+        int buffered = batch.size();
+        batch.removeIf(result -> !shardCoordinator.owns(result.product().id()));
+        if (batch.size() < buffered) {
+            meterRegistry.counter("price.monitor.shards.fenced").increment(buffered - batch.size());
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> productRepository.updateCheckResults(batch));
+            for (ScrapeResult result : batch) {
+                if (result.isFailed()) {
+                    failing.add(result.product().id());
+                } else {
+                    failing.remove(result.product().id());
+                }
+            }
+            meterRegistry.counter("price.monitor.writeback.rows").increment(batch.size());
+        } catch (Exception e) {
+            log.error("Failed to write back {} check results, retrying with the next batch", batch.size(), e);
+            meterRegistry.counter("price.monitor.writeback.failed").increment(batch.size());
+            requeue(batch);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.events.model.PriceChangeDetectedEvent;
+import com.example.ferrazsergio.pricewatcher.events.routing.PriceChangePartitioner;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.coordination.ShardAssignment;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.coordination.ShardCoordinator;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeCycleReport;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.repository.MonitoredProductRepository;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.ScrapeEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig.*;
+
+/**
+ * Periodically checks the products whose next check is due and publishes detected price changes.
+ * <p>
+ * Every {@code price-monitor.scheduler.tick} the due products are taken from the {@link ProductCheckQueue}
+ * and checked as one cycle, which the {@link
+ * com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PolitenessScheduler} spreads over the tick.
+ * Each result reschedules its product (see {@link CheckIntervalPolicy}). The active catalog is reloaded
+ * every {@code price-monitor.scheduler.catalog-refresh}, and immediately when the {@link ShardCoordinator}
+ * hands this replica a different set of shards.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "price-monitor.scheduler", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PriceMonitorScheduler {
+
+    private final MonitoredProductRepository productRepository;
+    private final ProductCheckQueue checkQueue;
+    private final ShardCoordinator shardCoordinator;
+    private final CheckResultWriter resultWriter;
+    private final ScrapeEngine scrapeEngine;
+    private final RabbitTemplate rabbitTemplate;
+    private final PriceChangePartitioner partitioner;
+    private final PriceMonitorProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private long catalogLoadedAt;
+    private ShardAssignment loadedAssignment;
+
+    @Scheduled(fixedRateString = "${price-monitor.scheduler.tick}",
+            initialDelayString = "${price-monitor.scheduler.initial-delay}")
+    public void runMonitoringCycle() {
+        long now = System.currentTimeMillis();
+        ShardAssignment assignment = shardCoordinator.currentAssignment();
+        if (!assignment.equals(loadedAssignment)
+                || now - catalogLoadedAt >= properties.getScheduler().getCatalogRefresh()) {
+            try {
+                // Pending prices must be in the table before it is read back
+                resultWriter.flush();
+                try (Stream<MonitoredProduct> products = productRepository.streamActiveProductsForMonitoring(
+                        assignment, properties.getScheduler().getCatalogPageSize())) {
+                    checkQueue.refresh(products, now);
+                }
+                catalogLoadedAt = now;
+                loadedAssignment = assignment;
+            } catch (Exception e) {
+                log.error("Unable to load products for monitoring", e);
+            }
+        }
+
+        List<MonitoredProduct> due = checkQueue.pollDue(now);
+        if (due.isEmpty()) {
+            log.debug("No products due for checking ({} scheduled)", checkQueue.size());
+            return;
+        }
+
+        log.info("Starting monitoring cycle for {} of {} products", due.size(), checkQueue.size());
+        ScrapeCycleReport report = scrapeEngine.runCycle(due, this::handleResult);
+        checkQueue.release(due, System.currentTimeMillis());
+        log.info("Monitoring cycle completed: {}", report);
+
+        meterRegistry.counter("price.monitor.products.checked").increment(report.checked());
+        meterRegistry.counter("price.monitor.products.changed").increment(report.changed());
+        meterRegistry.counter("price.monitor.products.failed").increment(report.failed());
+    }
+
+    private void handleResult(ScrapeResult result) {
+        checkQueue.reschedule(result, System.currentTimeMillis());
+        if (!shardCoordinator.owns(result.product().id())) {
+            // The shard's lease was lost during the check; its new owner may already have written a newer price
+            meterRegistry.counter("price.monitor.shards.fenced").increment();
+            return;
+        }
+        resultWriter.write(result);
+
+        if (result.isChanged()) {
+            MonitoredProduct product = result.product();
+            PriceChangeDetectedEvent event = new PriceChangeDetectedEvent(
+                    product.id(),
+                    product.name(),
+                    product.url(),
+                    product.currentPrice(),
+                    result.price(),
+                    product.targetPrice(),
+                    product.userId(),
+                    "EMAIL",
+                    null
+            );
+            // Routed to the product's partition, so consumers see its changes in order
+            rabbitTemplate.convertAndSend(PRICE_WATCHER_EXCHANGE, partitioner.routingKey(product.id()), event);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Priority queue of active products ordered by the time their next check is due.
+ * <p>
+ * Each product keeps a moving average of how often its price changes and a count of consecutive
+ * failures, from which {@link CheckIntervalPolicy} derives the next interval after every check.
+ * Products removed from the catalog are dropped lazily when they reach the head of the queue.
+ * When a product becomes due, the other products tracking the same page are checked with it, since
+ * the page is fetched only once anyway.
+ */
+@Component
+public class ProductCheckQueue {
+
+    private final CheckIntervalPolicy intervalPolicy;
+    private final PriceMonitorProperties properties;
+    private final DistributionSummary intervals;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(Entry::dueAt));
+    private final Map<Long, State> states = new HashMap<>();
+    private final Map<String, Set<State>> statesByPage = new HashMap<>();
+
+    public ProductCheckQueue(CheckIntervalPolicy intervalPolicy, PriceMonitorProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.intervalPolicy = intervalPolicy;
+        this.properties = properties;
+        this.intervals = DistributionSummary.builder("price.monitor.schedule.interval")
+                .description("Interval until a product's next check")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("price.monitor.schedule.products", this, ProductCheckQueue::size)
+                .description("Number of products being scheduled")
+                .register(meterRegistry);
+        Gauge.builder("price.monitor.schedule.lag", this, checks -> checks.lagMillis(System.currentTimeMillis()))
+                .description("How long the most overdue check has been waiting, in milliseconds")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Synchronizes the queue with the active catalog. Products seen on the first load are spread
+     * over one base interval; products added later are due immediately.
+     */
+    public synchronized void refresh(Stream<MonitoredProduct> active, long now) {
+        boolean initialLoad = states.isEmpty();
+        long spread = Math.max(1, properties.getScheduler().getFixedDelay());
+        Set<Long> seen = new HashSet<>();
+        for (MonitoredProduct product : (Iterable<MonitoredProduct>) active::iterator) {
+            seen.add(product.id());
+            State state = states.get(product.id());
+            if (state == null) {
+                state = new State(product);
+                states.put(product.id(), state);
+                index(state);
+                schedule(state, initialLoad ? now + ThreadLocalRandom.current().nextLong(spread) : now);
+            } else if (!state.inFlight) {
+                unindex(state);
+                state.product = product;
+                index(state);
+            }
+        }
+        for (Iterator<State> it = states.values().iterator(); it.hasNext(); ) {
+            State state = it.next();
+            if (!seen.contains(state.product.id())) {
+                unindex(state);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes and returns every product whose check is due
+     */
+    public synchronized List<MonitoredProduct> pollDue(long now) {
+        List<MonitoredProduct> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().dueAt() <= now) {
+            Entry entry = queue.poll();
+            State state = entry.state();
+            if (state.dueAt != entry.dueAt() || states.get(state.product.id()) != state) {
+                continue; // superseded or no longer active
+            }
+            take(state, due);
+            for (State sibling : statesByPage.getOrDefault(state.product.pageKey(), Set.of())) {
+                if (!sibling.inFlight) {
+                    take(sibling, due);
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Updates the product's history with the result of its check and schedules the next one
+     */
+    public synchronized void reschedule(ScrapeResult result, long now) {
+        State state = states.get(result.product().id());
+        if (state == null) {
+            return;
+        }
+        state.inFlight = false;
+        if (result.isFailed()) {
+            state.consecutiveFailures++;
+        } else {
+            // The first price ever seen is not a price movement
+            boolean moved = result.isChanged() && result.product().currentPrice() != null;
+            double alpha = properties.getScheduler().getAdaptive().getVolatilityAlpha();
+            state.changeRate = alpha * (moved ? 1 : 0) + (1 - alpha) * state.changeRate;
+            state.consecutiveFailures = 0;
+            state.product = state.product.withCurrentPrice(result.price());
+        }
+
+        long interval = intervalPolicy.nextInterval(state.product, state.changeRate, state.consecutiveFailures);
+        intervals.record(interval);
+        schedule(state, now + interval);
+    }
+
+    /**
+     * Puts back products of an interrupted cycle that never produced a result
+     */
+    public synchronized void release(List<MonitoredProduct> batch, long now) {
+        for (MonitoredProduct product : batch) {
+            State state = states.get(product.id());
+            if (state != null && state.inFlight) {
+                state.inFlight = false;
+                schedule(state, now + properties.getScheduler().getFixedDelay());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return states.size();
+    }
+
+    private synchronized long lagMillis(long now) {
+        Entry head = queue.peek();
+        return head != null && head.dueAt() < now ? now - head.dueAt() : 0;
+    }
+
+    private void take(State state, List<MonitoredProduct> due) {
+        state.inFlight = true;
+        state.dueAt = Long.MIN_VALUE; // invalidates the queued entry
+        due.add(state.product);
+    }
+
+    private void index(State state) {
+        statesByPage.computeIfAbsent(state.product.pageKey(), key -> new HashSet<>()).add(state);
+    }
+
+    private void unindex(State state) {
+        Set<State> siblings = statesByPage.get(state.product.pageKey());
+        if (siblings != null && siblings.remove(state) && siblings.isEmpty()) {
+            statesByPage.remove(state.product.pageKey());
+        }
+    }
+
+    private void schedule(State state, long dueAt) {
+        state.dueAt = dueAt;
+        queue.add(new Entry(dueAt, state));
+    }
+
+    private record Entry(long dueAt, State state) {
+    }
+
+    private static final class State {
+        private MonitoredProduct product;
+        private double changeRate = 1.0;
+        private int consecutiveFailures;
+        private long dueAt;
+        private boolean inFlight;
+
+        State(MonitoredProduct product) {
+            this.product = product;
+        }
+    }
+}
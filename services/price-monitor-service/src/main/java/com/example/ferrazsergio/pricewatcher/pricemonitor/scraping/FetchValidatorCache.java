@@ -0,0 +1,117 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers HTTP validators (ETag, Last-Modified) and a body hash per product URL in Redis.
+ * <p>
+ * Validators are only stored after a price was successfully extracted from the page, so a 304 or
+ * hash match always means the previously stored price is still valid. Redis errors degrade to a
+ * cache miss rather than failing the check.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FetchValidatorCache {
+
+    private static final String KEY_PREFIX = "price-monitor:fetch:";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String BODY_HASH = "bodyHash";
+
+    private final StringRedisTemplate redisTemplate;
+    private final PriceMonitorProperties properties;
+
+    public record Validators(String etag, String lastModified, String bodyHash) {
+    }
+
+    public Optional<Validators> get(String url) {
+        if (!properties.getScraping().getConditional().isEnabled()) {
+            return Optional.empty();
+        }
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(url));
+            if (fields.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Validators(
+                    (String) fields.get(ETAG),
+                    (String) fields.get(LAST_MODIFIED),
+                    (String) fields.get(BODY_HASH)));
+        } catch (Exception e) {
+            log.debug("Unable to read fetch validators for {}: {}", url, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void put(String url, Validators validators) {
+        PriceMonitorProperties.Conditional conditional = properties.getScraping().getConditional();
+        if (!conditional.isEnabled() || validators == null) {
+            return;
+        }
+        Map<String, String> fields = new HashMap<>();
+        if (validators.etag() != null) {
+            fields.put(ETAG, validators.etag());
+        }
+        if (validators.lastModified() != null) {
+            fields.put(LAST_MODIFIED, validators.lastModified());
+        }
+        if (validators.bodyHash() != null) {
+            fields.put(BODY_HASH, validators.bodyHash());
+        }
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        try {
+            String key = key(url);
+            redisTemplate.delete(key);
+            redisTemplate.opsForHash().putAll(key, fields);
+            redisTemplate.expire(key, Duration.ofMillis(conditional.getTtl()));
+        } catch (Exception e) {
+            log.debug("Unable to store fetch validators for {}: {}", url, e.getMessage());
+        }
+    }
+
+    public static String hash(byte[] body) {
+        MessageDigest digest = bodyDigest();
+        digest.update(body);
+        return hash(digest);
+    }
+
+    /**
+     * Digest to feed a body through while it is being read, finished with {@link #hash(MessageDigest)}
+     */
+    public static MessageDigest bodyDigest() {
+        return sha256();
+    }
+
+    public static String hash(MessageDigest digest) {
+        return Base64.getEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    private static String key(String url) {
+        return KEY_PREFIX + hash(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
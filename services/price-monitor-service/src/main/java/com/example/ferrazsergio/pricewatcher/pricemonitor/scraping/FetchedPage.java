@@ -0,0 +1,130 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A product page whose body has not been read yet, or a marker that it has not changed since the
+ * last successful check.
+ * <p>
+ * The body is consumed incrementally through {@link #bodyStream()}; {@link #bytesRead()} reports how much
+ * was actually pulled from the network.
+ * Closing the page releases the underlying connection, and the store's rate limiter slot when one is held
+ * (see {@link #holding(StoreRateLimiter.Permit)}).
+ */
+public final class FetchedPage implements AutoCloseable {
+
+    private final String url;
+    private final String charset;
+    private final String etag;
+    private final String lastModified;
+    private final CountingInputStream body;
+    private StoreRateLimiter.Permit permit;
+
+    private FetchedPage(String url, String charset, String etag, String lastModified, InputStream body) {
+        this.url = url;
+        this.charset = charset;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.body = body != null ? new CountingInputStream(body) : null;
+    }
+
+    public static FetchedPage notModified(String url) {
+        return new FetchedPage(url, null, null, null, null);
+    }
+
+    public static FetchedPage modified(String url, String charset, String etag, String lastModified, InputStream body) {
+        return new FetchedPage(url, charset, etag, lastModified, body);
+    }
+
+    /**
+     * Keeps the store's in-flight slot until the page is closed, since the store is still serving the
+     * body while it is being read
+     */
+    FetchedPage holding(StoreRateLimiter.Permit permit) {
+        this.permit = permit;
+        return this;
+    }
+
+    public boolean notModified() {
+        return body == null;
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public Charset charset() {
+        try {
+            return charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    public InputStream bodyStream() {
+        return body;
+    }
+
+    public long bytesRead() {
+        return body != null ? body.count : 0;
+    }
+
+    /**
+     * Validators to remember after a successful check; {@code bodyHash} may be null when the
+     * body was not read in full
+     */
+    public FetchValidatorCache.Validators validators(String bodyHash) {
+        return new FetchValidatorCache.Validators(etag, lastModified, bodyHash);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (body != null) {
+                body.close();
+            }
+        } finally {
+            if (permit != null) {
+                permit.close();
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Downloads product pages with jsoup.
+ * <p>
+ * When validators from a previous successful check are supplied, the request is made conditional
+ * ({@code If-None-Match} / {@code If-Modified-Since}) and a 304 answer is reported as
+ * {@link FetchedPage#notModified()}. Otherwise the body is left unread so the caller can choose
+ * between streaming it and reading it in full.
+ * <p>
+ * Performs a single attempt; retries are driven by {@link ScrapeEngine} so that every attempt
+ * goes through the store's {@link StoreRateLimiter}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PageFetcher {
+
+    private final PriceMonitorProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public FetchedPage fetch(String url, FetchValidatorCache.Validators previous) throws IOException {
+        PriceMonitorProperties.Scraping scraping = properties.getScraping();
+        Connection connection = Jsoup.connect(url)
+                .userAgent(scraping.getUserAgent())
+                .timeout(scraping.getTimeout())
+                .maxBodySize(scraping.getMaxBodySize())
+                .ignoreHttpErrors(true);
+        if (previous != null) {
+            if (previous.etag() != null) {
+                connection.header("If-None-Match", previous.etag());
+            }
+            if (previous.lastModified() != null) {
+                connection.header("If-Modified-Since", previous.lastModified());
+            }
+        }
+
+        Connection.Response response = connection.execute();
+        int status = response.statusCode();
+        if (status == 304 && previous != null) {
+            discardBody(response);
+            recordOutcome("not_modified");
+            return FetchedPage.notModified(url);
+        }
+        if (status == 429 || status == 503) {
+            discardBody(response);
+            throw new ThrottledException(url, status, parseRetryAfter(response.header("Retry-After")));
+        }
+        if (status >= 400) {
+            discardBody(response);
+            throw new HttpStatusException("HTTP error fetching URL", status, url);
+        }
+
+        return FetchedPage.modified(url, response.charset(), response.header("ETag"),
+                response.header("Last-Modified"), response.bodyStream());
+    }
+
+    /**
+     * Releases the connection of a response whose body is not going to be read
+     */
+    private static void discardBody(Connection.Response response) {
+        try {
+            response.bodyStream().close();
+        } catch (IOException | RuntimeException ignored) {
+            // The connection is dropped either way
+        }
+    }
+
+    private void recordOutcome(String outcome) {
+        meterRegistry.counter("price.monitor.fetch.conditional", "outcome", outcome).increment();
+    }
+
+    private Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
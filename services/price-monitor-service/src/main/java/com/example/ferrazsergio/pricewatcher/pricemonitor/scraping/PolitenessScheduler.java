@@ -0,0 +1,52 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns one {@link StoreRateLimiter} per store and paces each monitoring cycle over the scheduler window
+ */
+@Component
+@RequiredArgsConstructor
+public class PolitenessScheduler {
+
+    private final PriceMonitorProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StoreRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public StoreRateLimiter limiterFor(String store) {
+        return limiters.computeIfAbsent(store, this::createLimiter);
+    }
+
+    /**
+     * Spreads each store's share of the cycle evenly across the configured fraction of the scheduler tick
+     */
+    public void planCycle(Map<String, Integer> requestsByStore) {
+        PriceMonitorProperties.RateLimit rateLimit = properties.getScraping().getRateLimit();
+        Duration window = Duration.ofMillis(
+                (long) (properties.getScheduler().getTick() * rateLimit.getWindowFraction()));
+        requestsByStore.forEach((store, requests) -> limiterFor(store).pace(requests, window));
+    }
+
+    private StoreRateLimiter createLimiter(String store) {
+        PriceMonitorProperties.Scraping scraping = properties.getScraping();
+        StoreRateLimiter limiter = new StoreRateLimiter(store, scraping.getRateLimit(), scraping.concurrencyFor(store));
+
+        Gauge.builder("price.monitor.store.rate", limiter, StoreRateLimiter::getEffectiveRate)
+                .description("Current request rate per second allowed for the store")
+                .tag("store", store)
+                .register(meterRegistry);
+        Gauge.builder("price.monitor.store.inflight.limit", limiter, StoreRateLimiter::getInFlightLimit)
+                .description("Current maximum number of in-flight requests for the store")
+                .tag("store", store)
+                .register(meterRegistry);
+        return limiter;
+    }
+}
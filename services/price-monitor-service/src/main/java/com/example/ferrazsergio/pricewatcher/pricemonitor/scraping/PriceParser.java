@@ -0,0 +1,79 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses price text such as "R$ 1.299,90" or "$1,299.90" into a BigDecimal
+ * <p>
+ * Only one number is read: the first one following a currency symbol, or the first one in the text when
+ * there is no symbol. Text such as "12x de R$ 108,25" or "De R$ 1.499 por R$ 1.299" holds several numbers,
+ * and joining their digits would produce a price that was never shown.
+ */
+@Component
+public class PriceParser {
+
+    private static final Pattern NUMBER = Pattern.compile("\\d(?:[\\d.,]*\\d)?");
+    private static final Pattern AMOUNT_AFTER_CURRENCY = Pattern.compile("[$€£]\\s*(" + NUMBER.pattern() + ")");
+
+    public BigDecimal parse(String text) {
+        if (text == null) {
+            throw new PriceParseException("Price text is empty");
+        }
+
+        String number = firstAmount(text);
+        if (number == null) {
+            throw new PriceParseException("No price found in text: " + text);
+        }
+
+        String value = normalizeSeparators(number);
+        try {
+            return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            throw new PriceParseException("Invalid price text: " + text);
+        }
+    }
+
+    private String firstAmount(String text) {
+        Matcher amount = AMOUNT_AFTER_CURRENCY.matcher(text);
+        if (amount.find()) {
+            return amount.group(1);
+        }
+        Matcher number = NUMBER.matcher(text);
+        return number.find() ? number.group() : null;
+    }
+
+    private String normalizeSeparators(String value) {
+        int lastComma = value.lastIndexOf(',');
+        int lastDot = value.lastIndexOf('.');
+
+        // Both separators present: the last one is the decimal separator
+        if (lastComma >= 0 && lastDot >= 0) {
+            char decimal = lastComma > lastDot ? ',' : '.';
+            char grouping = decimal == ',' ? '.' : ',';
+            return value.replace(String.valueOf(grouping), "").replace(decimal, '.');
+        }
+
+        // A single separator followed by exactly three digits is a thousands separator ("1.299", "1,299")
+        int last = Math.max(lastComma, lastDot);
+        if (last < 0) {
+            return value;
+        }
+        char separator = value.charAt(last);
+        boolean repeated = value.indexOf(separator) != last;
+        if (repeated || value.length() - last - 1 == 3) {
+            return value.replace(String.valueOf(separator), "");
+        }
+        return value.replace(separator, '.');
+    }
+
+    public static class PriceParseException extends RuntimeException {
+        public PriceParseException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.extraction.PageContent;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.extraction.PriceExtractorChain;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeCycleReport;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.HttpStatusException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs a monitoring cycle by fanning products out over per-store worker lanes.
+ * <p>
+ * Each store gets at most {@code price-monitor.scraping.store-concurrency.<STORE>} lanes that drain
+ * the store's work queue, so cycle time is bounded by store bandwidth rather than product count.
+ * Products tracking the same page are fetched once and the price is fanned out to all of them.
+ * Every request, retries included, is admitted by the store's {@link StoreRateLimiter}, and pages that
+ * have not changed since the last successful check are not parsed again (see {@link FetchValidatorCache}).
+ * Prices are extracted by the store's {@link PriceExtractorChain}.
+ * Lanes run on virtual threads when the runtime supports them.
+ */
+@Slf4j
+@Component
+public class ScrapeEngine implements DisposableBean {
+
+    private final PageFetcher pageFetcher;
+    private final FetchValidatorCache fetchValidatorCache;
+    private final PriceExtractorChain extractorChain;
+    private final PolitenessScheduler politenessScheduler;
+    private final PriceMonitorProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+
+    public ScrapeEngine(PageFetcher pageFetcher, FetchValidatorCache fetchValidatorCache,
+                        PriceExtractorChain extractorChain, PolitenessScheduler politenessScheduler,
+                        PriceMonitorProperties properties, MeterRegistry meterRegistry) {
+        this.pageFetcher = pageFetcher;
+        this.fetchValidatorCache = fetchValidatorCache;
+        this.extractorChain = extractorChain;
+        this.politenessScheduler = politenessScheduler;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.executor = newLaneExecutor();
+    }
+
+    /**
+     * Checks every product and hands each result to {@code resultHandler} as soon as it is available.
+     * Blocks until the whole cycle has completed.
+     */
+    public ScrapeCycleReport runCycle(List<MonitoredProduct> products, Consumer<ScrapeResult> resultHandler) {
+        if (products.isEmpty()) {
+            return ScrapeCycleReport.empty();
+        }
+
+        long startedAt = System.nanoTime();
+        CycleStats stats = new CycleStats();
+
+        // Products tracking the same page, typically owned by different users, share one fetch
+        Map<String, Map<String, List<MonitoredProduct>>> pagesByStore = new HashMap<>();
+        for (MonitoredProduct product : products) {
+            pagesByStore.computeIfAbsent(product.store(), store -> new LinkedHashMap<>())
+                    .computeIfAbsent(product.pageKey(), key -> new ArrayList<>())
+                    .add(product);
+        }
+        Map<String, Queue<List<MonitoredProduct>>> workByStore = new HashMap<>();
+        pagesByStore.forEach((store, pages) -> workByStore.put(store, new ConcurrentLinkedQueue<>(pages.values())));
+
+        Map<String, Integer> requestsByStore = new HashMap<>();
+        workByStore.forEach((store, work) -> requestsByStore.put(store, work.size()));
+        politenessScheduler.planCycle(requestsByStore);
+
+        List<Future<?>> lanes = new ArrayList<>();
+        workByStore.forEach((store, work) -> {
+            int laneCount = Math.min(properties.getScraping().concurrencyFor(store), work.size());
+            for (int i = 0; i < laneCount; i++) {
+                lanes.add(executor.submit(() -> drain(work, stats, resultHandler)));
+            }
+        });
+
+        for (Future<?> lane : lanes) {
+            try {
+                lane.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lanes.forEach(pending -> pending.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                log.error("Scrape lane terminated unexpectedly", e.getCause());
+            }
+        }
+
+        return stats.toReport(Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private void drain(Queue<List<MonitoredProduct>> work, CycleStats stats, Consumer<ScrapeResult> resultHandler) {
+        List<MonitoredProduct> subscribers;
+        while (!Thread.currentThread().isInterrupted() && (subscribers = work.poll()) != null) {
+            for (ScrapeResult result : check(subscribers)) {
+                stats.record(result);
+                try {
+                    resultHandler.accept(result);
+                } catch (RuntimeException e) {
+                    log.error("Failed to handle scrape result for product {}", result.product().id(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetches the page once on behalf of a lead product and fans the price out to every subscriber
+     */
+    private List<ScrapeResult> check(List<MonitoredProduct> subscribers) {
+        MonitoredProduct lead = leadOf(subscribers);
+        long startedAt = System.nanoTime();
+        BigDecimal price = null;
+        String error = null;
+        try {
+            // Validators can only answer for subscribers that all agree on a known price
+            FetchValidatorCache.Validators previous = shareKnownPrice(subscribers)
+                    ? fetchValidatorCache.get(lead.url()).orElse(null)
+                    : null;
+            try (FetchedPage page = fetchPolitely(lead, previous)) {
+                price = page.notModified() ? lead.currentPrice() : extractPrice(lead, page, previous);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            log.debug("Failed to check product {} ({}): {}", lead.id(), lead.url(), e.getMessage());
+            error = describe(e);
+        }
+        long latencyNanos = System.nanoTime() - startedAt;
+
+        List<ScrapeResult> results = new ArrayList<>(subscribers.size());
+        for (MonitoredProduct product : subscribers) {
+            results.add(error == null
+                    ? ScrapeResult.success(product, price, latencyNanos)
+                    : ScrapeResult.failure(product, error, latencyNanos));
+        }
+
+        Timer.builder("price.monitor.scrape.duration")
+                .description("Time taken to fetch and parse a product page")
+                .tag("store", lead.store())
+                .tag("outcome", results.get(subscribers.indexOf(lead)).outcome().name())
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        if (subscribers.size() > 1) {
+            meterRegistry.counter("price.monitor.fetch.deduplicated", "store", lead.store())
+                    .increment(subscribers.size() - 1);
+        }
+        return results;
+    }
+
+    /**
+     * Prefers a subscriber with a custom selector so the CSS fallback has the most specific hint
+     */
+    private static MonitoredProduct leadOf(List<MonitoredProduct> subscribers) {
+        return subscribers.stream()
+                .filter(product -> product.selector() != null && !product.selector().isBlank())
+                .findFirst()
+                .orElse(subscribers.get(0));
+    }
+
+    private static boolean shareKnownPrice(List<MonitoredProduct> subscribers) {
+        BigDecimal price = subscribers.get(0).currentPrice();
+        return price != null && subscribers.stream()
+                .allMatch(product -> product.currentPrice() != null && product.currentPrice().compareTo(price) == 0);
+    }
+
+    private FetchedPage fetchPolitely(MonitoredProduct product, FetchValidatorCache.Validators previous)
+            throws IOException, InterruptedException {
+        StoreRateLimiter limiter = politenessScheduler.limiterFor(product.store());
+        int attempts = Math.max(1, properties.getScraping().getRetryAttempts());
+
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            StoreRateLimiter.Permit permit = limiter.acquire();
+            FetchedPage page = null;
+            try {
+                long requestedAt = System.nanoTime();
+                page = pageFetcher.fetch(product.url(), previous);
+                permit.success(System.nanoTime() - requestedAt);
+                // The slot is released once the body has been read and the page closed
+                return page.holding(permit);
+            } catch (ThrottledException e) {
+                permit.throttled(e.getRetryAfter());
+                meterRegistry.counter("price.monitor.store.throttled",
+                        "store", product.store(), "status", String.valueOf(e.getStatusCode())).increment();
+                lastError = e;
+            } catch (HttpStatusException e) {
+                if (e.getStatusCode() < 500) {
+                    throw e; // client errors will not go away on retry
+                }
+                lastError = e;
+            } catch (IOException e) {
+                lastError = e;
+            } finally {
+                if (page == null) {
+                    permit.close();
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    private BigDecimal extractPrice(MonitoredProduct product, FetchedPage page,
+                                    FetchValidatorCache.Validators previous) throws IOException {
+        PageContent content = new PageContent(page, product, previous);
+        BigDecimal price = extractorChain.extract(content);
+        fetchValidatorCache.put(product.url(), page.validators(content.bodyHash()));
+        return price;
+    }
+
+    private String describe(Exception e) {
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return message.length() > 255 ? message.substring(0, 255) : message;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Uses a virtual-thread-per-task executor on Java 21+, falling back to a cached platform pool.
+     * The pool never grows beyond the total number of lanes since only lanes are submitted.
+     */
+    private static ExecutorService newLaneExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger sequence = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "scrape-lane-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static class CycleStats {
+        private final AtomicInteger checked = new AtomicInteger();
+        private final AtomicInteger changed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        void record(ScrapeResult result) {
+            checked.incrementAndGet();
+            if (result.isChanged()) {
+                changed.incrementAndGet();
+            } else if (result.isFailed()) {
+                failed.incrementAndGet();
+            }
+            latencies.add(result.latencyNanos());
+        }
+
+        ScrapeCycleReport toReport(Duration duration) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new ScrapeCycleReport(checked.get(), changed.get(), failed.get(),
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), duration);
+        }
+
+        private static Duration percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return Duration.ZERO;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return Duration.ofNanos(sorted[Math.max(0, index)]);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive rate limiter for a single store.
+ * <p>
+ * Requests are paced one at a time at the effective rate (a token bucket with a burst of one), so a
+ * cycle's requests are spread evenly instead of bursting. The effective rate is the cycle's target pace,
+ * capped by an AIMD ceiling that grows additively on success and is cut multiplicatively when the
+ * store answers 429/503. The number of in-flight requests follows the same AIMD rule.
+ */
+public class StoreRateLimiter {
+
+    private final String store;
+    private final PriceMonitorProperties.RateLimit config;
+    private final int maxInFlight;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double ceilingRate;
+    private double targetRate;
+    private double inFlightLimit;
+    private int inFlight;
+    private long nextPermitAt = System.nanoTime();
+    private long pausedUntil = System.nanoTime();
+
+    public StoreRateLimiter(String store, PriceMonitorProperties.RateLimit config, int maxInFlight) {
+        this.store = store;
+        this.config = config;
+        this.maxInFlight = maxInFlight;
+        this.ceilingRate = config.getInitialRate();
+        this.inFlightLimit = maxInFlight;
+    }
+
+    /**
+     * Sets the pace needed to spread {@code requests} evenly over {@code window}
+     */
+    public void pace(int requests, Duration window) {
+        lock.lock();
+        try {
+            targetRate = window.isZero() ? 0 : requests / (window.toNanos() / 1e9);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until this store may receive another request
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (now < pausedUntil) {
+                    changed.awaitNanos(pausedUntil - now);
+                } else if (inFlight >= (int) inFlightLimit) {
+                    changed.await();
+                } else if (now < nextPermitAt) {
+                    changed.awaitNanos(nextPermitAt - now);
+                } else {
+                    nextPermitAt = Math.max(nextPermitAt, now) + intervalNanos();
+                    inFlight++;
+                    return new Permit();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public double getEffectiveRate() {
+        lock.lock();
+        try {
+            return effectiveRate();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlightLimit() {
+        lock.lock();
+        try {
+            return (int) inFlightLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double effectiveRate() {
+        double rate = targetRate > 0 ? Math.min(targetRate, ceilingRate) : ceilingRate;
+        return Math.max(config.getMinRate(), rate);
+    }
+
+    private long intervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / effectiveRate());
+    }
+
+    private void onSuccess(long latencyNanos) {
+        if (latencyNanos > TimeUnit.MILLISECONDS.toNanos(config.getSlowResponseThreshold())) {
+            ceilingRate = Math.max(config.getMinRate(), ceilingRate * 0.9);
+        } else {
+            // At rate r there are r successes per second, so the ceiling grows by about
+            // additiveIncrease per second regardless of the current rate
+            ceilingRate = Math.min(config.getMaxRate(), ceilingRate + config.getAdditiveIncrease() / ceilingRate);
+        }
+        inFlightLimit = Math.min(maxInFlight, inFlightLimit + 1.0 / inFlightLimit);
+    }
+
+    private void onThrottled(Duration retryAfter) {
+        ceilingRate = Math.max(config.getMinRate(), ceilingRate * config.getDecreaseFactor());
+        inFlightLimit = Math.max(1, inFlightLimit * config.getDecreaseFactor());
+        Duration cooldown = retryAfter != null ? retryAfter : Duration.ofMillis(config.getDefaultCooldown());
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + cooldown.toNanos());
+    }
+
+    /**
+     * Reservation for one in-flight request; report the outcome and close it to release the slot
+     */
+    public class Permit implements AutoCloseable {
+
+        private boolean released;
+
+        public void success(long latencyNanos) {
+            update(() -> onSuccess(latencyNanos));
+        }
+
+        public void throttled(Duration retryAfter) {
+            update(() -> onThrottled(retryAfter));
+        }
+
+        private void update(Runnable change) {
+            lock.lock();
+            try {
+                change.run();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (!released) {
+                    released = true;
+                    inFlight--;
+                    changed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Thrown when a store answers with HTTP 429 or 503, signalling that we are being rate limited
+ */
+@Getter
+public class ThrottledException extends IOException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public ThrottledException(String url, int statusCode, Duration retryAfter) {
+        super("Store throttled request with HTTP " + statusCode + ": " + url);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.coordination;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShardCoordinatorTest {
+
+    private static final int SHARDS = 64;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> members;
+
+    @Mock
+    private ValueOperations<String, String> leases;
+
+    private final PriceMonitorProperties properties = new PriceMonitorProperties();
+
+    @BeforeEach
+    void setUp() {
+        properties.getSharding().setShards(SHARDS);
+        properties.getSharding().setMemberId("monitor-a");
+    }
+
+    @Test
+    void assignsEveryShardToExactlyOneMember() {
+        List<String> memberIds = List.of("monitor-a", "monitor-b", "monitor-c", "monitor-d");
+
+        Set<Integer> assigned = new HashSet<>();
+        int total = 0;
+        for (String memberId : memberIds) {
+            Set<Integer> shards = ShardCoordinator.rendezvousShards(memberId, memberIds, SHARDS);
+            assigned.addAll(shards);
+            total += shards.size();
+        }
+
+        assertThat(total).isEqualTo(SHARDS);
+        assertThat(assigned).containsExactlyInAnyOrderElementsOf(IntStream.range(0, SHARDS).boxed().toList());
+        assertThat(ShardCoordinator.rendezvousShards("monitor-a", List.of("monitor-a"), SHARDS)).hasSize(SHARDS);
+    }
+
+    @Test
+    void movesOnlyTheShardsAJoiningMemberWins() {
+        List<String> before = List.of("monitor-a", "monitor-b", "monitor-c");
+        List<String> after = List.of("monitor-a", "monitor-b", "monitor-c", "monitor-d");
+
+        Set<Integer> joined = ShardCoordinator.rendezvousShards("monitor-d", after, SHARDS);
+        assertThat(joined).isNotEmpty();
+        for (String memberId : before) {
+            Set<Integer> kept = new HashSet<>(ShardCoordinator.rendezvousShards(memberId, before, SHARDS));
+            kept.removeAll(joined);
+            assertThat(ShardCoordinator.rendezvousShards(memberId, after, SHARDS)).isEqualTo(kept);
+        }
+    }
+
+    @Test
+    void trustsLeasesUntilAHeartbeatBeforeTheyExpire() {
+        PriceMonitorProperties.Sharding sharding = properties.getSharding();
+        sharding.setLeaseTtl(30_000);
+        sharding.setHeartbeatInterval(10_000);
+
+        assertThat(ShardCoordinator.leasesValidUntil(1_000_000, sharding)).isEqualTo(1_020_000);
+    }
+
+    @Test
+    void checksEveryProductWhenShardingIsDisabled() {
+        ShardCoordinator coordinator = new ShardCoordinator(redisTemplate, properties, new SimpleMeterRegistry());
+
+        assertThat(coordinator.currentAssignment().isUnsharded()).isTrue();
+        assertThat(coordinator.owns(12345L)).isTrue();
+    }
+
+    @Test
+    void ownsOnlyTheShardsWhoseLeaseItAcquired() {
+        properties.getSharding().setEnabled(true);
+        when(redisTemplate.opsForZSet()).thenReturn(members);
+        when(redisTemplate.opsForValue()).thenReturn(leases);
+        when(members.rangeByScore(anyString(), anyDouble(), anyDouble())).thenReturn(Set.of("monitor-a"));
+        when(leases.setIfAbsent(anyString(), eq("monitor-a"), any(Duration.class))).thenReturn(true);
+        when(leases.setIfAbsent(eq("price-monitor:shard:3"), eq("monitor-a"), any(Duration.class))).thenReturn(false);
+        ShardCoordinator coordinator = new ShardCoordinator(redisTemplate, properties, new SimpleMeterRegistry());
+        assertThat(coordinator.owns(1L)).isFalse();
+
+        coordinator.heartbeat();
+
+        assertThat(coordinator.currentAssignment().shards()).hasSize(SHARDS - 1).doesNotContain(3);
+        assertThat(coordinator.owns(SHARDS + 1L)).isTrue();
+        assertThat(coordinator.owns(SHARDS + 3L)).isFalse();
+    }
+
+    @Test
+    void keepsItsLeasesThroughAFailedHeartbeatWithinTheirValidity() {
+        properties.getSharding().setEnabled(true);
+        when(redisTemplate.opsForZSet()).thenReturn(members);
+        when(redisTemplate.opsForValue()).thenReturn(leases);
+        when(members.rangeByScore(anyString(), anyDouble(), anyDouble())).thenReturn(Set.of("monitor-a"));
+        when(leases.setIfAbsent(anyString(), eq("monitor-a"), any(Duration.class))).thenReturn(true);
+        ShardCoordinator coordinator = new ShardCoordinator(redisTemplate, properties, new SimpleMeterRegistry());
+        coordinator.heartbeat();
+
+        when(members.add(anyString(), anyString(), anyDouble())).thenThrow(new RedisConnectionFailureException("down"));
+        coordinator.heartbeat();
+
+        assertThat(coordinator.currentAssignment().shards()).hasSize(SHARDS);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.extraction;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.FetchValidatorCache;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.FetchedPage;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.scraping.PriceParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceExtractorChainTest {
+
+    private static final String FILLER = "<p>" + "lorem ipsum ".repeat(20_000) + "</p>";
+
+    private final PriceMonitorProperties properties = new PriceMonitorProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PriceExtractorChain chain = newChain();
+
+    @Test
+    void stopsReadingOnceTheHeadHasAPrice() throws IOException {
+        String html = "<html><head><meta property=\"og:price:amount\" content=\"129.90\"></head><body>"
+                + FILLER + "</body></html>";
+        PageContent page = content(html, product(null, null), null);
+
+        assertThat(chain.extract(page)).isEqualByComparingTo("129.90");
+        assertThat(page.isFullyRead()).isFalse();
+        assertThat(page.bodyHash()).isNull();
+        assertThat(page.bytesRead()).isLessThan(html.length());
+    }
+
+    @Test
+    void prefersEarlierExtractorsInTheChainOverElementsSeenFirst() throws IOException {
+        String html = "<html><head></head><body><span class=\"price\">R$ 10,00</span>"
+                + "<script type=\"application/ld+json\">"
+                + "{\"@type\":\"Product\",\"offers\":{\"price\":\"99.90\"}}</script>"
+                + FILLER + "</body></html>";
+
+        assertThat(chain.extract(content(html, product(".price", null), null))).isEqualByComparingTo("99.90");
+        assertThat(meterRegistry.get("price.monitor.extractor.results")
+                .tags("extractor", "json-ld", "result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("price.monitor.extractor.results").tags("extractor", "css-selector").counter())
+                .isNull();
+    }
+
+    @Test
+    void fallsBackToTheSelectorAfterStructuredDataMisses() throws IOException {
+        String html = "<html><head><title>Item</title></head><body><div class=\"box\"><span class=\"price\">"
+                + "R$ 1.234,56</span></div>" + FILLER + "</body></html>";
+        PageContent page = content(html, product(".box .price", null), null);
+
+        assertThat(chain.extract(page)).isEqualByComparingTo("1234.56");
+        // Structured data could still follow, so the whole page was read and hashed on the way
+        assertThat(page.isFullyRead()).isTrue();
+        assertThat(page.bodyHash()).isEqualTo(FetchValidatorCache.hash(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void searchesTheFullDocumentForSelectorsThatCannotStream() throws IOException {
+        String html = "<html><body><ul><li class=\"price\">R$ 5,00</li><li class=\"price\">R$ 7,50</li></ul>"
+                + "</body></html>";
+        properties.getExtraction().setDefaultChain(List.of("css-selector"));
+
+        assertThat(newChain().extract(content(html, product(".price:last-child", null), null)))
+                .isEqualByComparingTo("7.50");
+    }
+
+    @Test
+    void keepsTheCurrentPriceOfAnUnchangedBodyWithoutParsingIt() throws IOException {
+        String html = "<html><body><span class=\"price\">R$ 50,00</span></body></html>";
+        FetchValidatorCache.Validators previous = new FetchValidatorCache.Validators(null, null,
+                FetchValidatorCache.hash(html.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(chain.extract(content(html, product(".price", "42.00"), previous))).isEqualByComparingTo("42.00");
+        assertThat(meterRegistry.get("price.monitor.fetch.conditional").tags("outcome", "hash_match").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void parsesAChangedBodyReadForTheHashCheck() throws IOException {
+        String html = "<html><body><span class=\"price\">R$ 50,00</span></body></html>";
+        FetchValidatorCache.Validators previous = new FetchValidatorCache.Validators(null, null, "stale");
+
+        assertThat(chain.extract(content(html, product(".price", "42.00"), previous))).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void failsWhenNoExtractorFindsAPrice() {
+        String html = "<html><head></head><body><p>Out of stock</p></body></html>";
+
+        assertThatThrownBy(() -> chain.extract(content(html, product(".price", null), null)))
+                .isInstanceOf(PriceParser.PriceParseException.class);
+    }
+
+    private PriceExtractorChain newChain() {
+        PriceParser priceParser = new PriceParser();
+        ObjectMapper objectMapper = new ObjectMapper();
+        return new PriceExtractorChain(List.of(
+                new OpenGraphPriceExtractor(priceParser),
+                new JsonLdPriceExtractor(objectMapper, priceParser),
+                new EmbeddedStatePriceExtractor(objectMapper, priceParser, properties),
+                new CssSelectorPriceExtractor(priceParser, properties)), properties, meterRegistry);
+    }
+
+    private static PageContent content(String html, MonitoredProduct product, FetchValidatorCache.Validators previous) {
+        FetchedPage page = FetchedPage.modified(product.url(), "UTF-8", null, null,
+                new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+        return new PageContent(page, product, previous);
+    }
+
+    private static MonitoredProduct product(String selector, String currentPrice) {
+        return new MonitoredProduct(1L, "Item", "https://example.com/p/1", null, "AMAZON", selector,
+                currentPrice != null ? new BigDecimal(currentPrice) : null, null, 1L);
+    }
+}
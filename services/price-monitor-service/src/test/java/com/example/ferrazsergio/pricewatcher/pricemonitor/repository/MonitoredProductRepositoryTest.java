@@ -0,0 +1,50 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.repository;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MonitoredProductRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void splitsPriceUpdatesToStayWithinTheBindParameterLimit() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        List<ScrapeResult> results = LongStream.rangeClosed(1, 40_000)
+                .mapToObj(id -> ScrapeResult.success(product(id), new BigDecimal("9.99"), 0))
+                .toList();
+
+        new MonitoredProductRepository(jdbcTemplate).updateCheckResults(results);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(anyString(), args.capture());
+        assertThat(args.getAllValues()).allSatisfy(statement -> assertThat(statement.length).isLessThanOrEqualTo(65535));
+        assertThat(args.getAllValues().stream().mapToInt(statement -> (statement.length - 1) / 2).sum())
+                .isEqualTo(40_000);
+    }
+
+    private static MonitoredProduct product(long id) {
+        return new MonitoredProduct(id, "Product " + id, "https://example.com/p/" + id, null, "AMAZON", null,
+                new BigDecimal("10.00"), null, 1L);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckIntervalPolicyTest {
+
+    private static final long BASE = 300_000;
+
+    private final PriceMonitorProperties properties = new PriceMonitorProperties();
+    private final PriceMonitorProperties.Adaptive adaptive = properties.getScheduler().getAdaptive();
+    private final CheckIntervalPolicy policy = new CheckIntervalPolicy(properties);
+
+    @BeforeEach
+    void setUp() {
+        properties.getScheduler().setFixedDelay(BASE);
+        adaptive.setJitter(0);
+    }
+
+    @Test
+    void usesTheFixedDelayWhenAdaptiveSchedulingIsDisabled() {
+        adaptive.setEnabled(false);
+
+        assertThat(policy.nextInterval(product("100.00", null), 0.01, 5)).isEqualTo(BASE);
+    }
+
+    @Test
+    void backsOffAsThePriceChangesLessOften() {
+        assertThat(policy.nextInterval(product("100.00", null), 1.0, 0)).isEqualTo(BASE);
+        assertThat(policy.nextInterval(product("100.00", null), 0.25, 0)).isEqualTo(4 * BASE);
+        assertThat(policy.nextInterval(product("100.00", null), 0.0, 0)).isEqualTo(adaptive.getMaxInterval());
+    }
+
+    @Test
+    void tightensLinearlyTowardsTheTargetPrice() {
+        // 5% above the target, half of the 10% proximity
+        assertThat(policy.nextInterval(product("105.00", "100.00"), 0.25, 0)).isEqualTo(BASE / 2);
+        assertThat(policy.nextInterval(product("100.50", "100.00"), 1.0, 0)).isEqualTo(adaptive.getMinInterval());
+        // Outside the proximity, or already at or below the target
+        assertThat(policy.nextInterval(product("120.00", "100.00"), 0.25, 0)).isEqualTo(4 * BASE);
+        assertThat(policy.nextInterval(product("90.00", "100.00"), 0.25, 0)).isEqualTo(4 * BASE);
+    }
+
+    @Test
+    void backsOffExponentiallyOnConsecutiveFailures() {
+        MonitoredProduct nearTarget = product("101.00", "100.00");
+
+        assertThat(policy.nextInterval(nearTarget, 1.0, 1)).isEqualTo(BASE);
+        assertThat(policy.nextInterval(nearTarget, 1.0, 3)).isEqualTo(4 * BASE);
+        assertThat(policy.nextInterval(nearTarget, 1.0, 100)).isEqualTo(adaptive.getMaxInterval());
+    }
+
+    @Test
+    void jittersWithinTheConfiguredSpread() {
+        adaptive.setJitter(0.1);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.nextInterval(product("100.00", null), 1.0, 0)).isBetween(
+                    (long) (BASE * 0.9), (long) (BASE * 1.1));
+        }
+    }
+
+    private static MonitoredProduct product(String currentPrice, String targetPrice) {
+        return new MonitoredProduct(1L, "Product", "https://example.com/p/1", null, "AMAZON", null,
+                new BigDecimal(currentPrice), targetPrice != null ? new BigDecimal(targetPrice) : null, 1L);
+    }
+}
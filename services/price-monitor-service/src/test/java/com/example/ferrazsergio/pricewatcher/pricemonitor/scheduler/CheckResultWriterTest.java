@@ -0,0 +1,142 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.coordination.ShardCoordinator;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.repository.MonitoredProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CheckResultWriterTest {
+
+    @Mock
+    private MonitoredProductRepository productRepository;
+
+    @Mock
+    private ShardCoordinator shardCoordinator;
+
+    private final PriceMonitorProperties properties = new PriceMonitorProperties();
+    private CheckResultWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        properties.getWriteBack().setBatchSize(100);
+        writer = new CheckResultWriter(productRepository, shardCoordinator, properties, new SimpleMeterRegistry());
+        lenient().when(shardCoordinator.owns(anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void retriesAFailedBatchWithTheNextFlush() {
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doNothing()
+                .when(productRepository).updateCheckResults(anyList());
+        ScrapeResult changed = ScrapeResult.success(product(1L, "10.00"), new BigDecimal("9.00"), 0);
+
+        writer.write(changed);
+        writer.flush();
+        writer.flush();
+
+        assertThat(flushedBatches(2).get(1)).containsExactly(changed);
+    }
+
+    @Test
+    void neverLetsARetriedBatchOverwriteANewerResult() throws Exception {
+        properties.getWriteBack().setBatchSize(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch failWrite = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            failWrite.await(5, TimeUnit.SECONDS);
+            throw new DataAccessResourceFailureException("connection reset");
+        }).doNothing().when(productRepository).updateCheckResults(anyList());
+        MonitoredProduct product = product(1L, "10.00");
+        ScrapeResult older = ScrapeResult.success(product, new BigDecimal("9.00"), 0);
+        ScrapeResult newer = ScrapeResult.success(product, new BigDecimal("8.00"), 0);
+
+        Thread first = new Thread(() -> writer.write(older));
+        first.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread second = new Thread(() -> writer.write(newer));
+        second.start();
+        // The newer result is buffered and its flush waits for the failing one
+        while (second.getState() != Thread.State.WAITING && second.isAlive()) {
+            Thread.sleep(10);
+        }
+        failWrite.countDown();
+        first.join(5000);
+        second.join(5000);
+        writer.flush();
+
+        List<List<ScrapeResult>> batches = flushedBatches(2);
+        assertThat(batches.get(0)).containsExactly(older);
+        assertThat(batches.get(1)).containsExactly(newer);
+    }
+
+    @Test
+    void keepsOneResultPerProductPreferringPendingPriceChangesOverFailures() {
+        doNothing().when(productRepository).updateCheckResults(anyList());
+        MonitoredProduct first = product(1L, "10.00");
+        MonitoredProduct second = product(2L, "20.00");
+        ScrapeResult firstChanged = ScrapeResult.success(first, new BigDecimal("9.00"), 0);
+        ScrapeResult secondChanged = ScrapeResult.success(second, new BigDecimal("19.00"), 0);
+        ScrapeResult secondChangedAgain = ScrapeResult.success(second, new BigDecimal("18.00"), 0);
+
+        writer.write(firstChanged);
+        writer.write(secondChanged);
+        writer.write(ScrapeResult.failure(first, "IOException: timeout", 0));
+        writer.write(secondChangedAgain);
+        writer.flush();
+
+        assertThat(flushedBatches(1).get(0)).containsExactly(firstChanged, secondChangedAgain);
+    }
+
+    @Test
+    void dropsResultsOfShardsLostBeforeTheFlush() {
+        doNothing().when(productRepository).updateCheckResults(anyList());
+        ScrapeResult kept = ScrapeResult.success(product(1L, "10.00"), new BigDecimal("9.00"), 0);
+        ScrapeResult fenced = ScrapeResult.success(product(2L, "20.00"), new BigDecimal("19.00"), 0);
+        when(shardCoordinator.owns(2L)).thenReturn(false);
+
+        writer.write(kept);
+        writer.write(fenced);
+        writer.flush();
+
+        assertThat(flushedBatches(1).get(0)).containsExactly(kept);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<ScrapeResult>> flushedBatches(int count) {
+        ArgumentCaptor<List<ScrapeResult>> batches = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(count)).updateCheckResults(batches.capture());
+        return batches.getAllValues();
+    }
+
+    private static MonitoredProduct product(long id, String price) {
+        return new MonitoredProduct(id, "Product " + id, "https://example.com/p/" + id, null, "AMAZON", null,
+                new BigDecimal(price), null, 1L);
+    }
+}
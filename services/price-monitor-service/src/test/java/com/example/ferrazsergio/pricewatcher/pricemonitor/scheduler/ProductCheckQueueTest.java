@@ -0,0 +1,140 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scheduler;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.MonitoredProduct;
+import com.example.ferrazsergio.pricewatcher.pricemonitor.model.ScrapeResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCheckQueueTest {
+
+    private static final long BASE = 300_000;
+    private static final long NOW = 1_000_000_000L;
+
+    @Mock
+    private CheckIntervalPolicy intervalPolicy;
+
+    private final PriceMonitorProperties properties = new PriceMonitorProperties();
+    private ProductCheckQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        properties.getScheduler().setFixedDelay(BASE);
+        queue = new ProductCheckQueue(intervalPolicy, properties, new SimpleMeterRegistry());
+        lenient().when(intervalPolicy.nextInterval(any(), anyDouble(), anyInt())).thenReturn(60_000L);
+    }
+
+    @Test
+    void spreadsTheInitialLoadOverOneIntervalAndChecksLaterProductsImmediately() {
+        queue.refresh(Stream.of(product(1L, null), product(2L, null), product(3L, null)), NOW);
+
+        assertThat(queue.pollDue(NOW + BASE)).extracting(MonitoredProduct::id)
+                .containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        queue.refresh(Stream.of(product(1L, null), product(2L, null), product(3L, null), product(4L, null)),
+                NOW + BASE);
+        assertThat(queue.pollDue(NOW + BASE)).extracting(MonitoredProduct::id).containsExactly(4L);
+    }
+
+    @Test
+    void schedulesTheNextCheckFromThePolicy() {
+        MonitoredProduct product = product(1L, null);
+        queue.refresh(Stream.of(product), NOW);
+        queue.pollDue(NOW + BASE);
+
+        queue.reschedule(ScrapeResult.success(product, new BigDecimal("9.00"), 0), NOW + BASE);
+
+        assertThat(queue.pollDue(NOW + BASE + 59_999)).isEmpty();
+        assertThat(queue.pollDue(NOW + BASE + 60_000)).extracting(MonitoredProduct::id).containsExactly(1L);
+    }
+
+    @Test
+    void tracksHowOftenThePriceChangesAndConsecutiveFailures() {
+        MonitoredProduct product = product(1L, null);
+        queue.refresh(Stream.of(product), NOW);
+        queue.pollDue(NOW + BASE);
+
+        // Unchanged price: the change rate decays from 1.0 by the volatility alpha
+        queue.reschedule(ScrapeResult.success(product, new BigDecimal("10.00"), 0), NOW);
+        verify(intervalPolicy).nextInterval(any(), doubleThat(rate -> Math.abs(rate - 0.7) < 1e-9), eq(0));
+
+        queue.reschedule(ScrapeResult.failure(product, "IOException: timeout", 0), NOW);
+        queue.reschedule(ScrapeResult.failure(product, "IOException: timeout", 0), NOW);
+        verify(intervalPolicy).nextInterval(any(), doubleThat(rate -> Math.abs(rate - 0.7) < 1e-9), eq(2));
+
+        // A change raises the rate again and clears the failures
+        queue.reschedule(ScrapeResult.success(product, new BigDecimal("9.00"), 0), NOW);
+        verify(intervalPolicy).nextInterval(any(), doubleThat(rate -> Math.abs(rate - 0.79) < 1e-9), eq(0));
+    }
+
+    @Test
+    void checksProductsOfTheSamePageTogether() {
+        queue.refresh(Stream.of(product(1L, "AMAZON:amazon.com.br:B08N5WRWNW"),
+                product(2L, "AMAZON:amazon.com.br:B08N5WRWNW"), product(3L, null)), NOW);
+        queue.pollDue(NOW + BASE);
+        queue.reschedule(ScrapeResult.success(product(1L, "AMAZON:amazon.com.br:B08N5WRWNW"),
+                new BigDecimal("10.00"), 0), NOW + BASE);
+        queue.reschedule(ScrapeResult.success(product(2L, "AMAZON:amazon.com.br:B08N5WRWNW"),
+                new BigDecimal("10.00"), 0), NOW + 2 * BASE);
+
+        // Product 1 is due first and brings product 2, which shares its page, along
+        assertThat(queue.pollDue(NOW + BASE + 60_000)).extracting(MonitoredProduct::id)
+                .containsExactlyInAnyOrder(1L, 2L);
+        assertThat(queue.pollDue(NOW + 3 * BASE)).isEmpty();
+    }
+
+    @Test
+    void dropsProductsRemovedFromTheCatalog() {
+        queue.refresh(Stream.of(product(1L, null), product(2L, null)), NOW);
+
+        queue.refresh(Stream.of(product(2L, null)), NOW);
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.pollDue(NOW + BASE)).extracting(MonitoredProduct::id).containsExactly(2L);
+    }
+
+    @Test
+    void putsBackProductsOfAnInterruptedCycle() {
+        queue.refresh(Stream.of(product(1L, null)), NOW);
+        List<MonitoredProduct> batch = queue.pollDue(NOW + BASE);
+
+        queue.release(batch, NOW + BASE);
+
+        assertThat(queue.pollDue(NOW + 2 * BASE - 1)).isEmpty();
+        assertThat(queue.pollDue(NOW + 2 * BASE)).extracting(MonitoredProduct::id).containsExactly(1L);
+    }
+
+    @Test
+    void reportsTheLagOfTheMostOverdueCheck() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductCheckQueue measured = new ProductCheckQueue(intervalPolicy, properties, registry);
+        measured.refresh(Stream.of(product(1L, null)), System.currentTimeMillis() - 2 * BASE);
+
+        assertThat(registry.get("price.monitor.schedule.lag").gauge().value()).isGreaterThanOrEqualTo(BASE);
+        assertThat(registry.get("price.monitor.schedule.products").gauge().value()).isCloseTo(1, within(1e-9));
+    }
+
+    private static MonitoredProduct product(long id, String productKey) {
+        return new MonitoredProduct(id, "Product " + id, "https://example.com/p/" + id, productKey, "AMAZON", null,
+                new BigDecimal("10.00"), null, 1L);
+    }
+}
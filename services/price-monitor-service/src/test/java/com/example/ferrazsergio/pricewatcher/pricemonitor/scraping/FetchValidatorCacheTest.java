@@ -0,0 +1,114 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FetchValidatorCacheTest {
+
+    private static final String URL = "https://www.amazon.com.br/dp/B08N5WRWNW";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private final PriceMonitorProperties properties = new PriceMonitorProperties();
+    private FetchValidatorCache cache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        cache = new FetchValidatorCache(redisTemplate, properties);
+    }
+
+    @Test
+    void readsTheStoredValidators() {
+        when(hashOperations.entries(anyString())).thenReturn(Map.of("etag", "\"v1\"", "bodyHash", "abc"));
+
+        assertThat(cache.get(URL)).contains(new FetchValidatorCache.Validators("\"v1\"", null, "abc"));
+    }
+
+    @Test
+    void treatsRedisErrorsAsAMiss() {
+        when(hashOperations.entries(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(cache.get(URL)).isEmpty();
+    }
+
+    @Test
+    void replacesTheStoredValidatorsWithTheNonNullOnes() {
+        cache.put(URL, new FetchValidatorCache.Validators(null, "Tue, 01 Sep 2026 10:00:00 GMT", "abc"));
+
+        InOrder order = inOrder(redisTemplate, hashOperations);
+        order.verify(redisTemplate).delete(anyString());
+        order.verify(hashOperations).putAll(anyString(),
+                eq(Map.of("lastModified", "Tue, 01 Sep 2026 10:00:00 GMT", "bodyHash", "abc")));
+        order.verify(redisTemplate).expire(anyString(),
+                eq(Duration.ofMillis(properties.getScraping().getConditional().getTtl())));
+    }
+
+    @Test
+    void storesNothingWithoutValidators() {
+        cache.put(URL, new FetchValidatorCache.Validators(null, null, null));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void staysOutOfRedisWhenDisabled() {
+        properties.getScraping().getConditional().setEnabled(false);
+
+        assertThat(cache.get(URL)).isEmpty();
+        cache.put(URL, new FetchValidatorCache.Validators("\"v1\"", null, null));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void hashesABodyFedInChunksLikeTheWholeBody() {
+        byte[] body = "<html><body>R$ 10,00</body></html>".getBytes(StandardCharsets.UTF_8);
+        MessageDigest digest = FetchValidatorCache.bodyDigest();
+        digest.update(body, 0, 10);
+        digest.update(body, 10, body.length - 10);
+
+        assertThat(FetchValidatorCache.hash(digest)).isEqualTo(FetchValidatorCache.hash(body));
+        assertThat(FetchValidatorCache.hash(body)).isNotEqualTo(FetchValidatorCache.hash(new byte[0]));
+    }
+
+    @Test
+    void keysEachUrlSeparately() {
+        cache.put(URL, new FetchValidatorCache.Validators("\"v1\"", null, null));
+        cache.put(URL + "?th=1", new FetchValidatorCache.Validators("\"v1\"", null, null));
+
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(2)).delete(keys.capture());
+        assertThat(keys.getAllValues()).doesNotHaveDuplicates()
+                .allSatisfy(key -> assertThat(key).startsWith("price-monitor:fetch:"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FetchedPageTest {
+
+    @Test
+    void holdsTheStoreSlotUntilTheBodyHasBeenReadAndClosed() throws Exception {
+        StoreRateLimiter limiter = singleSlotLimiter();
+        AtomicBoolean bodyClosed = new AtomicBoolean();
+        FetchedPage page = FetchedPage.modified("https://example.com/p/1", "UTF-8", null, null,
+                new ByteArrayInputStream("<html></html>".getBytes(StandardCharsets.UTF_8)) {
+                    @Override
+                    public void close() throws IOException {
+                        bodyClosed.set(true);
+                        super.close();
+                    }
+                }).holding(limiter.acquire());
+
+        CompletableFuture<StoreRateLimiter.Permit> next = acquireAsync(limiter);
+        page.bodyStream().transferTo(OutputStream.nullOutputStream());
+        Thread.sleep(100);
+        assertThat(next).isNotDone();
+
+        page.close();
+        assertThat(bodyClosed).isTrue();
+        next.get(1, TimeUnit.SECONDS).close();
+    }
+
+    @Test
+    void releasesTheSlotOfANotModifiedPage() throws Exception {
+        StoreRateLimiter limiter = singleSlotLimiter();
+        FetchedPage page = FetchedPage.notModified("https://example.com/p/1").holding(limiter.acquire());
+
+        page.close();
+
+        acquireAsync(limiter).get(1, TimeUnit.SECONDS).close();
+    }
+
+    private static StoreRateLimiter singleSlotLimiter() {
+        PriceMonitorProperties.RateLimit config = new PriceMonitorProperties.RateLimit();
+        config.setInitialRate(1000);
+        config.setMaxRate(1000);
+        return new StoreRateLimiter("AMAZON", config, 1);
+    }
+
+    private static CompletableFuture<StoreRateLimiter.Permit> acquireAsync(StoreRateLimiter limiter) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        });
+    }
+}
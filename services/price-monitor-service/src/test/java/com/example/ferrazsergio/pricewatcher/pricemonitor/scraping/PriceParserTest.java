@@ -0,0 +1,51 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceParserTest {
+
+    private final PriceParser parser = new PriceParser();
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "R$ 1.299,90   | 1299.90",
+            "$1,299.90     | 1299.90",
+            "R$ 49,9       | 49.90",
+            "US$ 19.99     | 19.99",
+            "1.299         | 1299.00",
+            "1,299         | 1299.00",
+            "1.234.567     | 1234567.00",
+            "1,234,567.891 | 1234567.89",
+            "R$ 899     | 899.00",
+            "Por: R$ 10,00 à vista | 10.00",
+            "12x de R$ 108,25        | 108.25",
+            "De R$ 1.499 por R$ 1.299 | 1499.00",
+            "Total: R$ 59,90.        | 59.90"
+    })
+    void parsesPricesWrittenInEitherConvention(String text, String expected) {
+        assertThat(parser.parse(text)).isEqualByComparingTo(expected).hasScaleOf(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "Indisponível", "R$ --"})
+    void rejectsTextWithoutDigits(String text) {
+        assertThatThrownBy(() -> parser.parse(text)).isInstanceOf(PriceParser.PriceParseException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {".", ",.", "1.2.3,4,5"})
+    void rejectsMalformedNumbers(String text) {
+        assertThatThrownBy(() -> parser.parse(text)).isInstanceOf(PriceParser.PriceParseException.class);
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThatThrownBy(() -> parser.parse(null)).isInstanceOf(PriceParser.PriceParseException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ferrazsergio.pricewatcher.pricemonitor.scraping;
+
+import com.example.ferrazsergio.pricewatcher.pricemonitor.config.PriceMonitorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StoreRateLimiterTest {
+
+    private final PriceMonitorProperties.RateLimit config = new PriceMonitorProperties.RateLimit();
+
+    @Test
+    void growsTheCeilingAdditivelyOnFastResponses() throws InterruptedException {
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 4);
+
+        try (StoreRateLimiter.Permit permit = limiter.acquire()) {
+            permit.success(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        // 2.0 + additiveIncrease / 2.0
+        assertThat(limiter.getEffectiveRate()).isCloseTo(2.25, within(1e-9));
+    }
+
+    @Test
+    void easesOffOnSlowResponses() throws InterruptedException {
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 4);
+
+        try (StoreRateLimiter.Permit permit = limiter.acquire()) {
+            permit.success(TimeUnit.MILLISECONDS.toNanos(config.getSlowResponseThreshold() + 1));
+        }
+
+        assertThat(limiter.getEffectiveRate()).isCloseTo(1.8, within(1e-9));
+    }
+
+    @Test
+    void cutsRateAndConcurrencyMultiplicativelyWhenThrottled() throws InterruptedException {
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 4);
+
+        try (StoreRateLimiter.Permit permit = limiter.acquire()) {
+            permit.throttled(Duration.ZERO);
+        }
+
+        assertThat(limiter.getEffectiveRate()).isCloseTo(1.0, within(1e-9));
+        assertThat(limiter.getInFlightLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void neverDropsBelowTheMinimumRateOrASingleRequest() throws InterruptedException {
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 2);
+
+        try (StoreRateLimiter.Permit permit = limiter.acquire()) {
+            for (int i = 0; i < 20; i++) {
+                permit.throttled(Duration.ZERO);
+            }
+        }
+
+        assertThat(limiter.getEffectiveRate()).isEqualTo(config.getMinRate());
+        assertThat(limiter.getInFlightLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void pacesBelowTheCeilingToSpreadACycle() {
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 4);
+
+        limiter.pace(10, Duration.ofSeconds(100));
+
+        assertThat(limiter.getEffectiveRate()).isCloseTo(0.1, within(1e-9));
+    }
+
+    @Test
+    void waitsOutTheRetryAfterOfAThrottledResponse() throws InterruptedException {
+        config.setInitialRate(1000);
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 4);
+        try (StoreRateLimiter.Permit permit = limiter.acquire()) {
+            permit.throttled(Duration.ofMillis(300));
+        }
+
+        long startedAt = System.nanoTime();
+        limiter.acquire().close();
+
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void releasesASlotOnlyOnce() throws InterruptedException {
+        config.setInitialRate(1000);
+        StoreRateLimiter limiter = new StoreRateLimiter("AMAZON", config, 1);
+        StoreRateLimiter.Permit first = limiter.acquire();
+        first.close();
+        first.close();
+
+        StoreRateLimiter.Permit second = limiter.acquire();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire().close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        waiter.join(200);
+
+        assertThat(waiter.isAlive()).isTrue();
+        second.close();
+        waiter.join(1000);
+        assertThat(waiter.isAlive()).isFalse();
+    }
+}
@@ -5,6 +5,7 @@ import com.example.ferrazsergio.pricewatcher.productservice.dto.ProductRequest;
 import com.example.ferrazsergio.pricewatcher.productservice.dto.ProductResponse;
 import com.example.ferrazsergio.pricewatcher.productservice.model.Product;
 import com.example.ferrazsergio.pricewatcher.productservice.service.ProductService;
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.validation.Valid;
@@ -16,7 +17,6 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -157,11 +157,10 @@ public class ProductController {
     }
 
     private Long getUserId(Authentication authentication) {
-        if (authentication != null && authentication.getPrincipal() instanceof UserDetails userDetails) {
-            // In a real implementation, you would extract the user ID from the UserDetails
-            // For now, we'll use a mock implementation
-            return 1L; // TODO: Extract actual user ID from JWT token or UserDetails
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && user.id() != null) {
+            return user.id();
         }
         throw new RuntimeException("Authentication required");
     }
-}
\ No newline at end of file
+}
@@ -31,6 +31,9 @@ public class Product {
     @Column(nullable = false, unique = true, length = 2000)
     private String url;
 
+    @Column(name = "product_key")
+    private String productKey; // canonical store product identity, see ProductUrlNormalizer
+
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal targetPrice;
 
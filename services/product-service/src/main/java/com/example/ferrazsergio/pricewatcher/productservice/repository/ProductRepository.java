@@ -36,6 +36,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                                           Pageable pageable);
     
     boolean existsByUrlAndUserId(String url, Long userId);
+
+    boolean existsByProductKeyAndUserId(String productKey, Long userId);
+
+    List<Product> findByProductKeyIsNull(Pageable pageable);
     
     @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND p.active = true")
     List<Product> findActiveProductsForMonitoring();
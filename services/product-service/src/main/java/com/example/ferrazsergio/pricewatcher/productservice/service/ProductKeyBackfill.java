@@ -0,0 +1,54 @@
+package com.example.ferrazsergio.pricewatcher.productservice.service;
+
+import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
+import com.example.ferrazsergio.pricewatcher.productservice.model.Product;
+import com.example.ferrazsergio.pricewatcher.productservice.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills in {@code product_key} for products created before the column existed, or whose key was cleared
+ * by a migration that changed the key format
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductKeyBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductUrlNormalizer urlNormalizer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int updated = 0;
+        List<Product> batch;
+        while (!(batch = productRepository.findByProductKeyIsNull(PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            for (Product product : batch) {
+                product.setProductKey(productKey(product));
+            }
+            productRepository.saveAll(batch);
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            log.info("Backfilled product keys for {} products", updated);
+        }
+    }
+
+    private String productKey(Product product) {
+        try {
+            return urlNormalizer.productKey(product.getUrl(), product.getStore());
+        } catch (BusinessException e) {
+            // Keep a unique key so the row is not picked up again
+            log.warn("Unable to normalize URL of product {}: {}", product.getId(), e.getMessage());
+            return product.getStore().name() + ":id:" + product.getId();
+        }
+    }
+}
@@ -3,13 +3,13 @@ package com.example.ferrazsergio.pricewatcher.productservice.service;
 import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
 import com.example.ferrazsergio.pricewatcher.common.exception.ResourceNotFoundException;
 import com.example.ferrazsergio.pricewatcher.events.model.ProductCreatedEvent;
+import com.example.ferrazsergio.pricewatcher.events.outbox.EventOutbox;
 import com.example.ferrazsergio.pricewatcher.productservice.dto.ProductRequest;
 import com.example.ferrazsergio.pricewatcher.productservice.dto.ProductResponse;
 import com.example.ferrazsergio.pricewatcher.productservice.model.Product;
 import com.example.ferrazsergio.pricewatcher.productservice.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
@@ -32,8 +32,9 @@ import static com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final EventOutbox eventOutbox;
     private final ProductValidationService validationService;
+    private final ProductUrlNormalizer urlNormalizer;
 
     @Transactional
     public ProductResponse createProduct(ProductRequest request, Long userId) {
@@ -42,21 +43,23 @@ public class ProductService {
         // Validate URL
         validationService.validateProductUrl(request.url());
 
-        // Check if user already has this URL
-        if (productRepository.existsByUrlAndUserId(request.url(), userId)) {
-            throw new BusinessException("Product with this URL already exists for this user");
-        }
-
         // Detect store from URL
         Product.SupportedStore store = Product.SupportedStore.fromUrl(request.url());
         if (store == null) {
             throw new BusinessException("URL is not from a supported store");
         }
 
+        // Check if user already tracks this product, under any equivalent URL
+        String productKey = urlNormalizer.productKey(request.url(), store);
+        if (productRepository.existsByProductKeyAndUserId(productKey, userId)) {
+            throw new BusinessException("Product with this URL already exists for this user");
+        }
+
         Product product = new Product();
         product.setName(request.name());
         product.setDescription(request.description());
         product.setUrl(request.url());
+        product.setProductKey(productKey);
         product.setTargetPrice(request.targetPrice());
         product.setCategory(request.category() != null ? request.category() : Product.ProductCategory.GENERAL);
         product.setStore(store);
@@ -69,7 +72,7 @@ public class ProductService {
 
         product = productRepository.save(product);
 
-        // Publish product created event
+        // Record product created event, published once the transaction commits
         ProductCreatedEvent event = new ProductCreatedEvent(
                 product.getId(),
                 product.getName(),
@@ -78,7 +81,7 @@ public class ProductService {
                 product.getUserId(),
                 product.getStore().name()
         );
-        rabbitTemplate.convertAndSend(PRICE_WATCHER_EXCHANGE, "product.created", event);
+        eventOutbox.record("Product", product.getId(), PRICE_WATCHER_EXCHANGE, "product.created", event);
 
         log.info("Product created successfully with ID: {}", product.getId());
         return mapToResponse(product);
@@ -124,15 +127,18 @@ public class ProductService {
         if (!product.getUrl().equals(request.url())) {
             validationService.validateProductUrl(request.url());
             
-            if (productRepository.existsByUrlAndUserId(request.url(), userId)) {
-                throw new BusinessException("Product with this URL already exists for this user");
-            }
-            
             Product.SupportedStore newStore = Product.SupportedStore.fromUrl(request.url());
             if (newStore == null) {
                 throw new BusinessException("URL is not from a supported store");
             }
+
+            String newProductKey = urlNormalizer.productKey(request.url(), newStore);
+            if (!newProductKey.equals(product.getProductKey())
+                    && productRepository.existsByProductKeyAndUserId(newProductKey, userId)) {
+                throw new BusinessException("Product with this URL already exists for this user");
+            }
             product.setStore(newStore);
+            product.setProductKey(newProductKey);
         }
 
         product.setName(request.name());
@@ -0,0 +1,137 @@
+package com.example.ferrazsergio.pricewatcher.productservice.service;
+
+import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
+import com.example.ferrazsergio.pricewatcher.productservice.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Maps product URLs to a canonical per-store product key.
+ * <p>
+ * Stores with a stable product id in the URL map to {@code STORE:host:id} (e.g.
+ * {@code AMAZON:amazon.com.br:B08N5WRWNW}, {@code MERCADO_LIVRE:mercadolivre.com.br:MLB1234567}). Mercado
+ * Livre catalog products ({@code /p/MLB1234567}) are numbered apart from its listings and map to
+ * {@code MERCADO_LIVRE:mercadolivre.com.br:p:MLB1234567}. The host keeps the marketplace, since the same id
+ * names different listings on e.g. amazon.com and amazon.com.br, and drops subdomains such as {@code www.}
+ * or {@code m.} that serve the same marketplace. Other URLs map to {@code STORE:} followed by the URL
+ * without scheme, those subdomains, fragment, trailing slash and tracking parameters, with the remaining
+ * query parameters sorted; keys that would not fit the column are replaced by a SHA-256 digest.
+ */
+@Component
+public class ProductUrlNormalizer {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Map<Product.SupportedStore, Pattern> PRODUCT_ID_PATTERNS = Map.of(
+            Product.SupportedStore.AMAZON,
+            Pattern.compile("/(?:dp|gp/product|gp/aw/d)/([A-Za-z0-9]{10})(?:[/?#]|$)"),
+            Product.SupportedStore.MERCADO_LIVRE,
+            Pattern.compile("\\b(MLB)-?(\\d+)", Pattern.CASE_INSENSITIVE),
+            Product.SupportedStore.MAGAZINE_LUIZA,
+            Pattern.compile("/p/([A-Za-z0-9]+)(?:[/?#]|$)"),
+            Product.SupportedStore.AMERICANAS,
+            Pattern.compile("/produto/(\\d+)"),
+            Product.SupportedStore.SUBMARINO,
+            Pattern.compile("/produto/(\\d+)"),
+            Product.SupportedStore.CASAS_BAHIA,
+            Pattern.compile("/p/(\\d+)|-(\\d+)\\.html")
+    );
+
+    private static final Pattern MERCADO_LIVRE_CATALOG_ID = Pattern.compile("/p/(MLB\\d+)", Pattern.CASE_INSENSITIVE);
+
+    // Subdomains that serve the same marketplace as the bare domain
+    private static final List<String> ALIAS_SUBDOMAINS = List.of("www.", "m.", "smile.", "produto.", "articulo.");
+
+    private static final List<String> TRACKING_PREFIXES = List.of("utm_", "pd_rd_", "pf_rd_");
+    private static final List<String> TRACKING_PARAMS = List.of(
+            "gclid", "fbclid", "msclkid", "ref", "ref_", "tag", "psc", "th", "smid", "qid", "sr", "keywords",
+            "crid", "sprefix", "linkcode", "linkid", "camp", "creative", "matt_tool", "matt_word", "tracking_id",
+            "search_layout", "c_id", "c_uid", "sid", "searchvariation"
+    );
+
+    public String productKey(String url, Product.SupportedStore store) {
+        URI uri = parse(url);
+        String host = marketplaceHost(uri);
+        if (store == Product.SupportedStore.MERCADO_LIVRE) {
+            Matcher catalog = MERCADO_LIVRE_CATALOG_ID.matcher(url);
+            if (catalog.find()) {
+                return store.name() + ":" + host + ":p:" + catalog.group(1).toUpperCase(Locale.ROOT);
+            }
+        }
+        Pattern pattern = PRODUCT_ID_PATTERNS.get(store);
+        if (pattern != null) {
+            Matcher matcher = pattern.matcher(url);
+            if (matcher.find()) {
+                StringBuilder id = new StringBuilder();
+                for (int group = 1; group <= matcher.groupCount(); group++) {
+                    if (matcher.group(group) != null) {
+                        id.append(matcher.group(group));
+                    }
+                }
+                return store.name() + ":" + host + ":" + id.toString().toUpperCase(Locale.ROOT);
+            }
+        }
+
+        String key = store.name() + ":" + canonicalize(uri, host);
+        return key.length() <= MAX_KEY_LENGTH ? key : store.name() + ":sha256:" + sha256(key);
+    }
+
+    private static URI parse(String url) {
+        try {
+            return new URI(url.trim());
+        } catch (URISyntaxException e) {
+            throw new BusinessException("Invalid URL format: " + e.getMessage());
+        }
+    }
+
+    private static String marketplaceHost(URI uri) {
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+        for (String alias : ALIAS_SUBDOMAINS) {
+            if (host.startsWith(alias)) {
+                return host.substring(alias.length());
+            }
+        }
+        return host;
+    }
+
+    private static String canonicalize(URI uri, String host) {
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        String query = uri.getRawQuery() == null ? "" : Arrays.stream(uri.getRawQuery().split("&"))
+                .filter(param -> !param.isEmpty() && !isTracking(param))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        return host + path + (query.isEmpty() ? "" : "?" + query);
+    }
+
+    private static boolean isTracking(String param) {
+        int separator = param.indexOf('=');
+        String name = (separator >= 0 ? param.substring(0, separator) : param).toLowerCase(Locale.ROOT);
+        return TRACKING_PARAMS.contains(name) || TRACKING_PREFIXES.stream().anyMatch(name::startsWith);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Partial index backing the keyset-paginated scan of products due for monitoring
+CREATE INDEX IF NOT EXISTS idx_products_monitoring ON products(id) WHERE status = 'ACTIVE' AND active = true;
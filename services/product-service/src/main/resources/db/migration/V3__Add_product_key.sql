@@ -0,0 +1,8 @@
+-- Canonical per-store product identity (e.g. AMAZON:amazon.com.br:B08N5WRWNW), filled in by the application
+ALTER TABLE products ADD COLUMN IF NOT EXISTS product_key VARCHAR(255);
+
+CREATE INDEX IF NOT EXISTS idx_products_product_key ON products(product_key);
+CREATE INDEX IF NOT EXISTS idx_products_user_product_key ON products(user_id, product_key) WHERE active = true;
+
+-- Lookups by URL go through product_key now; idx_products_user_url still enforces uniqueness
+DROP INDEX IF EXISTS idx_products_url;
@@ -0,0 +1,15 @@
+-- Transactional outbox: events written with the change that raised them, published by the outbox relay
+CREATE TABLE IF NOT EXISTS product_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(100) NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+    exchange VARCHAR(255) NOT NULL,
+    routing_key VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    type_id VARCHAR(255),
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Finds whether an older message of the same aggregate is still waiting
+CREATE INDEX IF NOT EXISTS idx_product_outbox_aggregate ON product_outbox(aggregate_type, aggregate_id, id);
@@ -0,0 +1,82 @@
+package com.example.ferrazsergio.pricewatcher.productservice.service;
+
+import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
+import com.example.ferrazsergio.pricewatcher.productservice.model.Product.SupportedStore;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductUrlNormalizerTest {
+
+    private final ProductUrlNormalizer normalizer = new ProductUrlNormalizer();
+
+    @Test
+    void keysAmazonProductsByMarketplaceAndAsin() {
+        assertThat(normalizer.productKey(
+                "https://www.amazon.com.br/Echo-Dot/dp/B08N5WRWNW/ref=sr_1_1?keywords=echo&qid=1", SupportedStore.AMAZON))
+                .isEqualTo("AMAZON:amazon.com.br:B08N5WRWNW");
+        assertThat(normalizer.productKey("https://amazon.com.br/gp/product/b08n5wrwnw#reviews", SupportedStore.AMAZON))
+                .isEqualTo("AMAZON:amazon.com.br:B08N5WRWNW");
+        assertThat(normalizer.productKey("https://m.amazon.com.br/gp/aw/d/B08N5WRWNW?th=1", SupportedStore.AMAZON))
+                .isEqualTo("AMAZON:amazon.com.br:B08N5WRWNW");
+    }
+
+    @Test
+    void keepsTheSameIdOnDifferentMarketplacesApart() {
+        String brazil = normalizer.productKey("https://www.amazon.com.br/dp/B08N5WRWNW", SupportedStore.AMAZON);
+        String us = normalizer.productKey("https://www.amazon.com/dp/B08N5WRWNW", SupportedStore.AMAZON);
+
+        assertThat(brazil).isNotEqualTo(us);
+        assertThat(us).isEqualTo("AMAZON:amazon.com:B08N5WRWNW");
+    }
+
+    @Test
+    void keysMercadoLivreListingsAcrossItsSubdomains() {
+        assertThat(normalizer.productKey(
+                "https://produto.mercadolivre.com.br/MLB-1234567-fone-bluetooth-_JM#position=1",
+                SupportedStore.MERCADO_LIVRE))
+                .isEqualTo("MERCADO_LIVRE:mercadolivre.com.br:MLB1234567");
+        assertThat(normalizer.productKey("https://www.mercadolivre.com.br/MLB1234567", SupportedStore.MERCADO_LIVRE))
+                .isEqualTo("MERCADO_LIVRE:mercadolivre.com.br:MLB1234567");
+    }
+
+    @Test
+    void keepsMercadoLivreCatalogProductsApartFromListings() {
+        String catalog = normalizer.productKey(
+                "https://www.mercadolivre.com.br/fone-bluetooth/p/MLB1234567?pdp_filters=category",
+                SupportedStore.MERCADO_LIVRE);
+        String listing = normalizer.productKey(
+                "https://produto.mercadolivre.com.br/MLB-1234567-fone-bluetooth-_JM", SupportedStore.MERCADO_LIVRE);
+
+        assertThat(catalog).isEqualTo("MERCADO_LIVRE:mercadolivre.com.br:p:MLB1234567").isNotEqualTo(listing);
+    }
+
+    @Test
+    void canonicalizesUrlsWithoutProductId() {
+        String key = normalizer.productKey(
+                "HTTPS://WWW.Americanas.com.br/busca/fone/?b=2&utm_source=x&a=1&gclid=abc#top",
+                SupportedStore.AMERICANAS);
+
+        assertThat(key).isEqualTo("AMERICANAS:americanas.com.br/busca/fone?a=1&b=2");
+        assertThat(normalizer.productKey("https://americanas.com.br/busca/fone?a=1&b=2", SupportedStore.AMERICANAS))
+                .isEqualTo(key);
+        assertThat(normalizer.productKey("https://americanas.com.br/busca/fone?a=1&b=3", SupportedStore.AMERICANAS))
+                .isNotEqualTo(key);
+    }
+
+    @Test
+    void hashesKeysThatDoNotFitTheColumn() {
+        String key = normalizer.productKey("https://www.americanas.com.br/busca?q=" + "x".repeat(300),
+                SupportedStore.AMERICANAS);
+
+        assertThat(key).startsWith("AMERICANAS:sha256:").hasSize("AMERICANAS:sha256:".length() + 64);
+    }
+
+    @Test
+    void rejectsMalformedUrls() {
+        assertThatThrownBy(() -> normalizer.productKey("https://www.ameri canas.com.br/busca",
+                SupportedStore.AMERICANAS))
+                .isInstanceOf(BusinessException.class);
+    }
+}
@@ -8,7 +8,8 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @SpringBootApplication(scanBasePackages = {
     "com.example.ferrazsergio.pricewatcher.userservice",
     "com.example.ferrazsergio.pricewatcher.common",
-    "com.example.ferrazsergio.pricewatcher.events"
+    "com.example.ferrazsergio.pricewatcher.events",
+    "com.example.ferrazsergio.pricewatcher.security"
 })
 @EntityScan("com.example.ferrazsergio.pricewatcher.userservice.model")
 @EnableJpaRepositories("com.example.ferrazsergio.pricewatcher.userservice.repository")
@@ -1,5 +1,7 @@
 package com.example.ferrazsergio.pricewatcher.userservice.config;
 
+import com.example.ferrazsergio.pricewatcher.security.filter.IdentityHeaderAuthenticationFilter;
+import com.example.ferrazsergio.pricewatcher.security.filter.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +14,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
  * Security configuration for the User Service
@@ -22,6 +25,9 @@ import org.springframework.security.web.SecurityFilterChain;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final IdentityHeaderAuthenticationFilter identityHeaderAuthenticationFilter;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -43,6 +49,9 @@ public class SecurityConfig {
                 .requestMatchers("/h2-console/**").permitAll()
                 .anyRequest().authenticated()
             )
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Requests through the gateway carry its signed identity headers, so skip verifying the JWT again
+            .addFilterBefore(identityHeaderAuthenticationFilter, JwtAuthenticationFilter.class)
             .headers(headers -> headers.frameOptions().disable()); // For H2 console in dev
 
         return http.build();
@@ -2,9 +2,14 @@ package com.example.ferrazsergio.pricewatcher.userservice.controller;
 
 import com.example.ferrazsergio.pricewatcher.common.dto.ApiResponse;
 import com.example.ferrazsergio.pricewatcher.common.dto.PagedResponse;
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
+import com.example.ferrazsergio.pricewatcher.security.jwt.JwtTokenUtil;
+import com.example.ferrazsergio.pricewatcher.security.jwt.TokenRevocationList;
 import com.example.ferrazsergio.pricewatcher.userservice.dto.LoginRequest;
+import com.example.ferrazsergio.pricewatcher.userservice.dto.TokenResponse;
 import com.example.ferrazsergio.pricewatcher.userservice.dto.UserRegistrationRequest;
 import com.example.ferrazsergio.pricewatcher.userservice.dto.UserResponse;
+import com.example.ferrazsergio.pricewatcher.userservice.model.User;
 import com.example.ferrazsergio.pricewatcher.userservice.service.UserService;
 import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
@@ -31,6 +36,8 @@ public class UserController {
 
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final TokenRevocationList tokenRevocationList;
 
     @PostMapping("/register")
     @Timed(value = "user.register", description = "Time taken to register a user")
@@ -43,17 +50,28 @@ public class UserController {
 
     @PostMapping("/login")
     @Timed(value = "user.login", description = "Time taken to authenticate a user")
-    public ResponseEntity<ApiResponse<String>> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<ApiResponse<TokenResponse>> login(@Valid @RequestBody LoginRequest request) {
         log.info("Login attempt for username: {}", request.username());
         
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.username(), request.password())
         );
         
-        // For now, return a simple success message
-        // In a real implementation, you would generate JWT tokens here
-        String message = "Login successful for user: " + authentication.getName();
-        return ResponseEntity.ok(ApiResponse.success(message));
+        // The tokens carry the user's id and roles, so other services need no user lookup
+        User user = (User) authentication.getPrincipal();
+        TokenResponse tokens = TokenResponse.bearer(
+                jwtTokenUtil.generateToken(user.getId(), user),
+                jwtTokenUtil.generateRefreshToken(user.getId(), user));
+        return ResponseEntity.ok(ApiResponse.success(tokens, "Login successful for user: " + user.getUsername()));
+    }
+
+    @PostMapping("/logout")
+    @Timed(value = "user.logout", description = "Time taken to log a user out")
+    public ResponseEntity<ApiResponse<Void>> logout(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            tokenRevocationList.revokeToken(user);
+        }
+        return ResponseEntity.ok(ApiResponse.success(null, "Logout successful"));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,14 @@
+package com.example.ferrazsergio.pricewatcher.userservice.dto;
+
+/**
+ * DTO for the tokens issued on login
+ */
+public record TokenResponse(
+    String accessToken,
+    String refreshToken,
+    String tokenType
+) {
+    public static TokenResponse bearer(String accessToken, String refreshToken) {
+        return new TokenResponse(accessToken, refreshToken, "Bearer");
+    }
+}
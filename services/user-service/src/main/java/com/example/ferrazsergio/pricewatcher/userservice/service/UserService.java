@@ -3,13 +3,14 @@ package com.example.ferrazsergio.pricewatcher.userservice.service;
 import com.example.ferrazsergio.pricewatcher.common.exception.BusinessException;
 import com.example.ferrazsergio.pricewatcher.common.exception.ResourceNotFoundException;
 import com.example.ferrazsergio.pricewatcher.events.model.UserCreatedEvent;
+import com.example.ferrazsergio.pricewatcher.events.outbox.EventOutbox;
+import com.example.ferrazsergio.pricewatcher.security.jwt.TokenRevocationList;
 import com.example.ferrazsergio.pricewatcher.userservice.dto.UserRegistrationRequest;
 import com.example.ferrazsergio.pricewatcher.userservice.dto.UserResponse;
 import com.example.ferrazsergio.pricewatcher.userservice.model.User;
 import com.example.ferrazsergio.pricewatcher.userservice.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -31,7 +32,8 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final RabbitTemplate rabbitTemplate;
+    private final EventOutbox eventOutbox;
+    private final TokenRevocationList tokenRevocationList;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -61,9 +63,9 @@ public class UserService implements UserDetailsService {
 
         user = userRepository.save(user);
 
-        // Publish user created event
+        // Record user created event, published once the transaction commits
         UserCreatedEvent event = new UserCreatedEvent(user.getId(), user.getUsername(), user.getEmail());
-        rabbitTemplate.convertAndSend(PRICE_WATCHER_EXCHANGE, USER_CREATED_ROUTING_KEY, event);
+        eventOutbox.record("User", user.getId(), PRICE_WATCHER_EXCHANGE, USER_CREATED_ROUTING_KEY, event);
 
         log.info("User created successfully with ID: {}", user.getId());
         return mapToResponse(user);
@@ -103,6 +105,9 @@ public class UserService implements UserDetailsService {
             throw new BusinessException("Email already exists");
         }
 
+        // Tokens carry the username, and must not outlive the password they were issued for
+        boolean revokeTokens = !user.getUsername().equals(request.username());
+
         user.setUsername(request.username());
         user.setEmail(request.email());
         user.setFirstName(request.firstName());
@@ -111,9 +116,13 @@ public class UserService implements UserDetailsService {
 
         if (request.password() != null && !request.password().trim().isEmpty()) {
             user.setPassword(passwordEncoder.encode(request.password()));
+            revokeTokens = true;
         }
 
         user = userRepository.save(user);
+        if (revokeTokens) {
+            tokenRevocationList.revokeUser(user.getId());
+        }
         log.info("User updated successfully with ID: {}", user.getId());
         return mapToResponse(user);
     }
@@ -124,6 +133,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", id));
         
         userRepository.delete(user);
+        tokenRevocationList.revokeUser(id);
         log.info("User deleted successfully with ID: {}", id);
     }
 
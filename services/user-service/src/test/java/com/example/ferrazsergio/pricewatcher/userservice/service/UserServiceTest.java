@@ -0,0 +1,112 @@
+package com.example.ferrazsergio.pricewatcher.userservice.service;
+
+import com.example.ferrazsergio.pricewatcher.events.outbox.EventOutbox;
+import com.example.ferrazsergio.pricewatcher.security.jwt.TokenRevocationList;
+import com.example.ferrazsergio.pricewatcher.userservice.dto.UserRegistrationRequest;
+import com.example.ferrazsergio.pricewatcher.userservice.dto.UserResponse;
+import com.example.ferrazsergio.pricewatcher.userservice.model.User;
+import com.example.ferrazsergio.pricewatcher.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private EventOutbox eventOutbox;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User existing;
+
+    @BeforeEach
+    void setUp() {
+        existing = new User();
+        existing.setId(7L);
+        existing.setUsername("alice");
+        existing.setEmail("alice@example.com");
+        existing.setPassword("encoded-old");
+    }
+
+    @Test
+    void createUserRegistersWithoutRevokingTokens() {
+        when(userRepository.existsByUsername("bob")).thenReturn(false);
+        when(userRepository.existsByEmail("bob@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("secret1")).thenReturn("encoded");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User saved = invocation.getArgument(0);
+            saved.setId(8L);
+            return saved;
+        });
+
+        UserResponse response = userService.createUser(request("bob", "bob@example.com", "secret1"));
+
+        assertThat(response.id()).isEqualTo(8L);
+        assertThat(response.username()).isEqualTo("bob");
+        verify(eventOutbox).record(eq("User"), eq(8L), anyString(), anyString(), any());
+        verify(tokenRevocationList, never()).revokeUser(any());
+    }
+
+    @Test
+    void updateUserRevokesTokensWhenPasswordChanges() {
+        when(userRepository.findById(7L)).thenReturn(Optional.of(existing));
+        when(passwordEncoder.encode("newSecret")).thenReturn("encoded-new");
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        userService.updateUser(7L, request("alice", "alice@example.com", "newSecret"));
+
+        assertThat(existing.getPassword()).isEqualTo("encoded-new");
+        verify(tokenRevocationList).revokeUser(7L);
+    }
+
+    @Test
+    void updateUserRevokesTokensWhenUsernameChanges() {
+        when(userRepository.findById(7L)).thenReturn(Optional.of(existing));
+        when(userRepository.existsByUsername("alicia")).thenReturn(false);
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        userService.updateUser(7L, request("alicia", "alice@example.com", " "));
+
+        assertThat(existing.getPassword()).isEqualTo("encoded-old");
+        verify(tokenRevocationList).revokeUser(7L);
+    }
+
+    @Test
+    void updateUserKeepsTokensWhenCredentialsAreUnchanged() {
+        when(userRepository.findById(7L)).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        userService.updateUser(7L, request("alice", "alice@example.com", null));
+
+        verify(tokenRevocationList, never()).revokeUser(any());
+    }
+
+    private static UserRegistrationRequest request(String username, String email, String password) {
+        return new UserRegistrationRequest(username, email, password, "First", "Last", null);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.ferrazsergio.pricewatcher.common.exception;
 
 import com.example.ferrazsergio.pricewatcher.common.dto.ApiResponse;
+import com.example.ferrazsergio.pricewatcher.common.utils.CorrelationIdUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,7 +13,6 @@ import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Global exception handler for all controllers
@@ -59,6 +59,6 @@ public class GlobalExceptionHandler {
     }
 
     private String generateCorrelationId() {
-        return UUID.randomUUID().toString();
+        return CorrelationIdUtils.generateCorrelationId();
     }
 }
\ No newline at end of file
@@ -3,8 +3,6 @@ package com.example.ferrazsergio.pricewatcher.common.utils;
 import lombok.experimental.UtilityClass;
 import org.slf4j.MDC;
 
-import java.util.UUID;
-
 /**
  * Correlation ID utilities for distributed tracing
  */
@@ -15,7 +13,7 @@ public class CorrelationIdUtils {
     public static final String CORRELATION_ID_MDC_KEY = "correlationId";
     
     public static String generateCorrelationId() {
-        return UUID.randomUUID().toString();
+        return TimeOrderedIds.nextString();
     }
     
     public static void setCorrelationId(String correlationId) {
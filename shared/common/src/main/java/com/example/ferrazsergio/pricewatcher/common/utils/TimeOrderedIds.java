@@ -0,0 +1,74 @@
+package com.example.ferrazsergio.pricewatcher.common.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered identifiers in the UUIDv7 layout (RFC 9562).
+ * <p>
+ * The 48 most significant bits hold the Unix time in milliseconds, followed by a 12-bit sequence and 62
+ * random bits, so identifiers sort by creation time and new rows land at the end of an index instead of
+ * at random pages. Each thread keeps its own sequence, which starts at a random value every millisecond
+ * and is incremented for each identifier within it, so the identifiers of one thread are strictly
+ * increasing without any shared state or locking. When a thread exhausts the sequence, or the clock
+ * steps back, it keeps counting from its last timestamp. The random bits come from
+ * {@link ThreadLocalRandom} rather than {@code SecureRandom}: they have to make collisions unlikely,
+ * not unpredictable, so these identifiers must not be used as secrets.
+ */
+@UtilityClass
+public class TimeOrderedIds {
+
+    private static final int MAX_SEQUENCE = 0xFFF;
+    // Starting in the lower half leaves at least 2048 identifiers per millisecond before borrowing
+    private static final int SEQUENCE_START_BOUND = 0x800;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private static final ThreadLocal<Sequence> SEQUENCE = ThreadLocal.withInitial(Sequence::new);
+
+    public static UUID next() {
+        Sequence sequence = SEQUENCE.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        if (now > sequence.millis) {
+            sequence.millis = now;
+            sequence.value = random.nextInt(SEQUENCE_START_BOUND);
+        } else if (++sequence.value > MAX_SEQUENCE) {
+            sequence.millis++;
+            sequence.value = 0;
+        }
+        long mostSignificant = (sequence.millis << 16) | VERSION | sequence.value;
+        long leastSignificant = (random.nextLong() >>> 2) | VARIANT;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    public static String nextString() {
+        return next().toString();
+    }
+
+    /**
+     * Creation time, in epoch milliseconds, of an identifier in the UUIDv7 layout; empty for any other
+     * string
+     */
+    public static OptionalLong millisOf(String id) {
+        if (id == null || id.length() != 36) {
+            return OptionalLong.empty();
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.version() == 7 && uuid.variant() == 2
+                    ? OptionalLong.of(uuid.getMostSignificantBits() >>> 16)
+                    : OptionalLong.empty();
+        } catch (IllegalArgumentException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static final class Sequence {
+        private long millis;
+        private int value;
+    }
+}
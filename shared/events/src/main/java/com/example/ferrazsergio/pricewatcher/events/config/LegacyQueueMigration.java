@@ -0,0 +1,80 @@
+package com.example.ferrazsergio.pricewatcher.events.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig.*;
+
+/**
+ * Retires the work queues declared before they dead-lettered to their parking lots.
+ * <p>
+ * RabbitMQ refuses to redeclare an existing queue with different arguments (406 PRECONDITION_FAILED), so
+ * the work queues were renamed ({@code <queue>.v2}) when they gained their dead-letter arguments. At
+ * startup, each old queue still present is unbound from the exchange, so it receives no new events, and
+ * its messages are moved to its successor. It is deleted once it is empty and has no consumers left, that
+ * is once no instance of the previous version is running; until then a later startup finishes the job.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyQueueMigration {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        legacyQueues().forEach(this::migrate);
+    }
+
+    private void migrate(String legacyQueue, LegacyQueue legacy) {
+        try {
+            QueueInformation information = amqpAdmin.getQueueInfo(legacyQueue);
+            if (information == null) {
+                return;
+            }
+            for (String routingKey : legacy.routingKeys()) {
+                amqpAdmin.removeBinding(new Binding(legacyQueue, Binding.DestinationType.QUEUE,
+                        PRICE_WATCHER_EXCHANGE, routingKey, null));
+            }
+            Integer moved = rabbitTemplate.execute(channel -> QueueTransfer.move(channel, legacyQueue,
+                    legacy.successor(), Integer.MAX_VALUE, UnaryOperator.identity()));
+            log.info("Moved {} messages from legacy queue {} to {}", moved, legacyQueue, legacy.successor());
+            if (information.getConsumerCount() > 0) {
+                log.warn("Legacy queue {} still has {} consumers, leaving it until they stop", legacyQueue,
+                        information.getConsumerCount());
+                return;
+            }
+            // Only deleted if empty and unused, in case an old instance started consuming meanwhile
+            amqpAdmin.deleteQueue(legacyQueue, true, true);
+            log.info("Deleted legacy queue {}", legacyQueue);
+        } catch (Exception e) {
+            log.warn("Failed to migrate legacy queue {} to {}: {}", legacyQueue, legacy.successor(),
+                    e.getMessage());
+        }
+    }
+
+    private Map<String, LegacyQueue> legacyQueues() {
+        Map<String, LegacyQueue> queues = new LinkedHashMap<>();
+        queues.put("price-change-queue", new LegacyQueue(PRICE_CHANGE_QUEUE, List.of(PRICE_CHANGE_ROUTING_KEY)));
+        queues.put("user-events-queue", new LegacyQueue(USER_EVENTS_QUEUE, List.of(USER_CREATED_ROUTING_KEY)));
+        queues.put("notification-queue", new LegacyQueue(NOTIFICATION_QUEUE, List.of(NOTIFICATION_ROUTING_KEY)));
+        queues.put("analytics-queue", new LegacyQueue(ANALYTICS_QUEUE, List.of(ANALYTICS_ROUTING_KEY)));
+        return queues;
+    }
+
+    private record LegacyQueue(String successor, List<String> routingKeys) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ferrazsergio.pricewatcher.events.config;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Moves messages from one queue to another, oldest first.
+ * <p>
+ * Messages are published with publisher confirms and acknowledged on the source queue in batches, only
+ * once the broker has confirmed the whole batch. A failure leaves every unconfirmed message on the source
+ * queue, so a message may be moved twice but is never lost.
+ */
+@UtilityClass
+public class QueueTransfer {
+
+    private static final int CONFIRM_BATCH_SIZE = 100;
+    private static final long CONFIRM_TIMEOUT = 10000;
+
+    /**
+     * Moves up to {@code limit} messages, rewriting their properties with {@code properties}, and returns
+     * how many were moved
+     */
+    public int move(Channel channel, String from, String to, int limit,
+                    UnaryOperator<AMQP.BasicProperties> properties)
+            throws IOException, InterruptedException, TimeoutException {
+        // Fails, closing the channel, rather than dropping messages published to a queue that does not exist
+        channel.queueDeclarePassive(to);
+        channel.confirmSelect();
+        int moved = 0;
+        int unconfirmed = 0;
+        long lastDeliveryTag = 0;
+        GetResponse response;
+        while (moved < limit && (response = channel.basicGet(from, false)) != null) {
+            channel.basicPublish("", to, properties.apply(response.getProps()), response.getBody());
+            lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+            moved++;
+            if (++unconfirmed == CONFIRM_BATCH_SIZE) {
+                confirm(channel, lastDeliveryTag);
+                unconfirmed = 0;
+            }
+        }
+        if (unconfirmed > 0) {
+            confirm(channel, lastDeliveryTag);
+        }
+        return moved;
+    }
+
+    private void confirm(Channel channel, long lastDeliveryTag)
+            throws IOException, InterruptedException, TimeoutException {
+        channel.waitForConfirmsOrDie(CONFIRM_TIMEOUT);
+        channel.basicAck(lastDeliveryTag, true);
+    }
+}
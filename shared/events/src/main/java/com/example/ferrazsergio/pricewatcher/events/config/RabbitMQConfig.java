@@ -1,16 +1,25 @@
 package com.example.ferrazsergio.pricewatcher.events.config;
 
+import com.example.ferrazsergio.pricewatcher.events.retry.TieredRetryRecoverer;
+import com.example.ferrazsergio.pricewatcher.events.routing.PriceChangePartitioner;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RabbitMQ configuration for event-driven architecture
  */
@@ -21,12 +30,21 @@ public class RabbitMQConfig {
 
     // Exchange names
     public static final String PRICE_WATCHER_EXCHANGE = "price-watcher-exchange";
+    public static final String DEAD_LETTER_EXCHANGE = "price-watcher-dlx";
+    public static final String RETRY_EXCHANGE = "price-watcher-retry";
     
-    // Queue names
-    public static final String PRICE_CHANGE_QUEUE = "price-change-queue";
-    public static final String USER_EVENTS_QUEUE = "user-events-queue";
-    public static final String NOTIFICATION_QUEUE = "notification-queue";
-    public static final String ANALYTICS_QUEUE = "analytics-queue";
+    // Queue names; versioned since the arguments of an existing queue cannot change (see LegacyQueueMigration)
+    public static final String PRICE_CHANGE_QUEUE = "price-change-queue.v2";
+    public static final String USER_EVENTS_QUEUE = "user-events-queue.v2";
+    public static final String NOTIFICATION_QUEUE = "notification-queue.v2";
+    public static final String ANALYTICS_QUEUE = "analytics-queue.v2";
+
+    /**
+     * Queues split into price change partitions: only those with a partitioned consumer, since a partition
+     * queue nobody consumes would keep every price change forever. A service that starts consuming price
+     * changes adds its queue here and consumes {@link PriceChangePartitioner#assignedQueues(String)}.
+     */
+    public static final List<String> PARTITIONED_QUEUES = List.of(ANALYTICS_QUEUE);
     
     // Routing keys
     public static final String PRICE_CHANGE_ROUTING_KEY = "price.change.detected";
@@ -34,6 +52,38 @@ public class RabbitMQConfig {
     public static final String NOTIFICATION_ROUTING_KEY = "notification.send";
     public static final String ANALYTICS_ROUTING_KEY = "analytics.process";
 
+    /**
+     * Encoding of published events: {@code json} (default) or {@code cbor}. Consumers read either one
+     * by its content type, so producers can switch once every consumer runs this version.
+     */
+    @Value("${events.encoding:json}")
+    private String encoding;
+
+    /**
+     * Type of the work queues: {@code classic} (default) or {@code quorum}. The type of an existing queue
+     * cannot change, it must be deleted and declared again.
+     */
+    @Value("${events.queues.type:classic}")
+    private String queueType;
+
+    /**
+     * Keep classic queue messages on disk rather than in memory, for queues that may grow long
+     */
+    @Value("${events.queues.lazy:false}")
+    private boolean lazyQueues;
+
+    /**
+     * Deliveries of a message to a quorum queue before it is dead-lettered, guarding against requeue loops
+     */
+    @Value("${events.queues.delivery-limit:20}")
+    private int deliveryLimit;
+
+    /**
+     * Delays of the retry tiers, in milliseconds; a message whose listener failed once more is parked
+     */
+    @Value("${events.retry.delays:5000,30000,300000}")
+    private long[] retryDelays;
+
     @Bean
     public TopicExchange priceWatcherExchange() {
         return new TopicExchange(PRICE_WATCHER_EXCHANGE);
@@ -41,22 +91,22 @@ public class RabbitMQConfig {
 
     @Bean
     public Queue priceChangeQueue() {
-        return QueueBuilder.durable(PRICE_CHANGE_QUEUE).build();
+        return workQueue(PRICE_CHANGE_QUEUE).build();
     }
 
     @Bean
     public Queue userEventsQueue() {
-        return QueueBuilder.durable(USER_EVENTS_QUEUE).build();
+        return workQueue(USER_EVENTS_QUEUE).build();
     }
 
     @Bean
     public Queue notificationQueue() {
-        return QueueBuilder.durable(NOTIFICATION_QUEUE).build();
+        return workQueue(NOTIFICATION_QUEUE).build();
     }
 
     @Bean
     public Queue analyticsQueue() {
-        return QueueBuilder.durable(ANALYTICS_QUEUE).build();
+        return workQueue(ANALYTICS_QUEUE).build();
     }
 
     @Bean
@@ -87,17 +137,151 @@ public class RabbitMQConfig {
                 .with(ANALYTICS_ROUTING_KEY);
     }
 
+    /**
+     * Delivers unpartitioned price changes, from publishers predating partitioning, to the analytics queue
+     * as well, for the price history
+     */
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
+    public Binding analyticsPriceChangeBinding() {
+        return BindingBuilder.bind(analyticsQueue())
+                .to(priceWatcherExchange())
+                .with(PRICE_CHANGE_ROUTING_KEY);
+    }
+
+    /**
+     * One queue per price change partition for each of the {@link #PARTITIONED_QUEUES}, bound to the
+     * partition's routing key. A single active consumer per queue keeps each product's updates in order.
+     */
+    @Bean
+    public Declarables priceChangePartitionQueues(PriceChangePartitioner partitioner) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (String queue : PARTITIONED_QUEUES) {
+            for (int partition = 0; partition < partitioner.getPartitions(); partition++) {
+                Queue partitionQueue = workQueue(PriceChangePartitioner.queueName(queue, partition))
+                        .singleActiveConsumer()
+                        .build();
+                declarables.add(partitionQueue);
+                declarables.add(BindingBuilder.bind(partitionQueue)
+                        .to(priceWatcherExchange())
+                        .with(partitioner.routingKeyOf(partition)));
+            }
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Retry tiers and a parking lot for every work queue.
+     * <p>
+     * A message whose listener failed is republished by {@link
+     * com.example.ferrazsergio.pricewatcher.events.retry.TieredRetryRecoverer} to the queue's next retry
+     * tier, {@code <queue>.retry.<n>}, where it waits for the tier's delay and is then dead-lettered back
+     * to the queue. After the last tier, and whenever the broker dead-letters a message of the queue
+     * itself (rejected without requeue or over the delivery limit), it lands in {@code <queue>.parking-lot}
+     * until it is replayed.
+     */
+    @Bean
+    public Declarables deadLetterTopology(PriceChangePartitioner partitioner) {
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE);
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE);
+        List<Declarable> declarables = new ArrayList<>(List.of(deadLetterExchange, retryExchange));
+        for (String queue : workQueueNames(partitioner)) {
+            for (int tier = 0; tier < retryDelays.length; tier++) {
+                Queue retryQueue = queueOfType(retryQueueName(queue, tier))
+                        .ttl((int) retryDelays[tier])
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(queue)
+                        .build();
+                declarables.add(retryQueue);
+                declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(retryQueue.getName()));
+            }
+            Queue parkingLot = queueOfType(parkingLotName(queue)).build();
+            declarables.add(parkingLot);
+            declarables.add(BindingBuilder.bind(parkingLot).to(deadLetterExchange).with(queue));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Names of every queue consumed by a service, partition queues included
+     */
+    public static List<String> workQueueNames(PriceChangePartitioner partitioner) {
+        List<String> queues = new ArrayList<>(List.of(PRICE_CHANGE_QUEUE, USER_EVENTS_QUEUE, NOTIFICATION_QUEUE,
+                ANALYTICS_QUEUE));
+        for (String queue : PARTITIONED_QUEUES) {
+            for (int partition = 0; partition < partitioner.getPartitions(); partition++) {
+                queues.add(PriceChangePartitioner.queueName(queue, partition));
+            }
+        }
+        return queues;
+    }
+
+    public static String retryQueueName(String queue, int tier) {
+        return queue + ".retry." + tier;
+    }
+
+    public static String parkingLotName(String queue) {
+        return queue + ".parking-lot";
+    }
+
+    /**
+     * A work queue dead-letters to its parking lot
+     */
+    private QueueBuilder workQueue(String name) {
+        QueueBuilder builder = queueOfType(name)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(name);
+        if ("quorum".equalsIgnoreCase(queueType)) {
+            builder.deliveryLimit(deliveryLimit);
+        }
+        return builder;
+    }
+
+    private QueueBuilder queueOfType(String name) {
+        QueueBuilder builder = QueueBuilder.durable(name);
+        if ("quorum".equalsIgnoreCase(queueType)) {
+            builder.quorum();
+        } else if (lazyQueues) {
+            builder.lazy();
+        }
+        return builder;
+    }
+
+    @Bean
+    public ContentTypeDelegatingMessageConverter messageConverter() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        return new Jackson2JsonMessageConverter(objectMapper);
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter(objectMapper);
+        CborMessageConverter cbor = new CborMessageConverter();
+
+        // Outgoing messages carry no content type yet, so they are encoded by the default delegate
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter("cbor".equalsIgnoreCase(encoding) ? cbor : json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, cbor);
+        return converter;
+    }
+
+    /**
+     * Sends messages whose listener failed through the retry tiers instead of requeueing them, for
+     * containers of the default listener container factory
+     */
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> retryContainerCustomizer(
+            TieredRetryRecoverer retryRecoverer) {
+        return container -> {
+            container.setAdviceChain(retryRecoverer.interceptor());
+            container.setDefaultRequeueRejected(false);
+        };
     }
 
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(messageConverter());
+        // Publish on a connection of their own, so publishers never wait for channels held by consumers
+        rabbitTemplate.setUsePublisherConnection(true);
+        // Unroutable messages are returned to the publisher instead of being dropped silently
+        rabbitTemplate.setMandatory(true);
         return rabbitTemplate;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.ferrazsergio.pricewatcher.events.model;
 
+import com.example.ferrazsergio.pricewatcher.common.utils.TimeOrderedIds;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -25,6 +26,6 @@ public abstract class BaseEvent {
     protected BaseEvent(String eventType) {
         this.eventType = eventType;
         this.timestamp = LocalDateTime.now();
-        this.eventId = java.util.UUID.randomUUID().toString();
+        this.eventId = TimeOrderedIds.nextString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.ferrazsergio.pricewatcher.events.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records domain events in the outbox table within the caller's transaction, so an event exists if and
+ * only if the change that raised it was committed. {@link OutboxRelay} publishes them afterwards.
+ * Available in services that configure their outbox table, {@code events.outbox.table}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "events.outbox", name = "table")
+public class EventOutbox {
+
+    private final OutboxRepository outboxRepository;
+    private final MessageConverter messageConverter;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Encodes the event now, with the configured encoding, and stores it. Events of the same aggregate
+     * are published in the order they were recorded.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Object aggregateId, String exchange, String routingKey, Object event) {
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+        MessageProperties properties = message.getMessageProperties();
+        Object typeId = properties.getHeaders().get(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+        outboxRepository.insert(aggregateType, String.valueOf(aggregateId), exchange, routingKey,
+                properties.getContentType(), typeId != null ? typeId.toString() : null, message.getBody());
+        meterRegistry.counter("events.outbox.recorded").increment();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ferrazsergio.pricewatcher.events.outbox;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+
+/**
+ * An encoded event waiting in the outbox to be published
+ */
+public record OutboxMessage(
+        long id,
+        String aggregateType,
+        String aggregateId,
+        String exchange,
+        String routingKey,
+        String contentType,
+        String typeId,
+        byte[] payload
+) {
+
+    public Message toMessage() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(contentType);
+        properties.setContentLength(payload.length);
+        if (typeId != null) {
+            properties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, typeId);
+        }
+        return new Message(payload, properties);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.ferrazsergio.pricewatcher.events.outbox;
+
+import com.example.ferrazsergio.pricewatcher.events.publisher.EventPublisher;
+import com.example.ferrazsergio.pricewatcher.events.publisher.UnroutableEventException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox into the broker.
+ * <p>
+ * Each round claims up to {@code events.outbox.batch-size} messages with {@code FOR UPDATE SKIP LOCKED},
+ * publishes them through {@link EventPublisher} and deletes those the broker confirmed, all in one
+ * transaction, so several replicas can relay the same outbox. Messages that were not confirmed stay and
+ * are published again in a later round; consumers must tolerate the duplicates this may cause. Only the
+ * oldest message of an aggregate is ever claimed, which keeps each aggregate's events in order. Full
+ * batches are followed immediately by the next round, otherwise the relay waits {@code poll-interval}
+ * milliseconds.
+ * <p>
+ * The relay runs wherever the service has an outbox table, unless {@code events.outbox.relay.enabled} is
+ * false, as for tests whose schema has no outbox table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "events.outbox", name = "table")
+@ConditionalOnProperty(prefix = "events.outbox.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements DisposableBean {
+
+    private final OutboxRepository outboxRepository;
+    private final EventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer roundTimer;
+    private final int batchSize;
+    private final long pollInterval;
+    private final long confirmTimeout;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final ExecutorService relay = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    public OutboxRelay(OutboxRepository outboxRepository, EventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${events.outbox.batch-size:500}") int batchSize,
+                       @Value("${events.outbox.poll-interval:500}") long pollInterval,
+                       @Value("${events.outbox.confirm-timeout:10000}") long confirmTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.confirmTimeout = confirmTimeout;
+        this.roundTimer = Timer.builder("events.outbox.relay")
+                .description("Time taken to publish and delete a batch of outbox messages")
+                .register(meterRegistry);
+        meterRegistry.gauge("events.outbox.pending", pending);
+        meterRegistry.gauge("events.outbox.lag", lagMillis, lag -> lag.get() / 1000.0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relay.submit(this::run);
+    }
+
+    private void run() {
+        while (running) {
+            int relayed;
+            try {
+                relayed = roundTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+            } catch (RuntimeException e) {
+                log.error("Outbox relay round failed", e);
+                relayed = 0;
+            }
+            if (relayed < batchSize) {
+                refreshStats();
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = outboxRepository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            try {
+                confirms.add(eventPublisher.publish(message.exchange(), message.routingKey(), message.toMessage()));
+            } catch (AmqpException e) {
+                confirms.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeout);
+        List<Long> published = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (isPublished(confirms.get(i), deadline)) {
+                published.add(batch.get(i).id());
+            }
+        }
+        outboxRepository.delete(published);
+        meterRegistry.counter("events.outbox.relayed").increment(published.size());
+        if (published.size() < batch.size()) {
+            meterRegistry.counter("events.outbox.deferred").increment(batch.size() - published.size());
+        }
+        return published.size();
+    }
+
+    /**
+     * Whether the message is done with: confirmed, or returned as unroutable, which publishing it
+     * again would not change
+     */
+    private boolean isPublished(CompletableFuture<Void> confirm, long deadline) {
+        try {
+            confirm.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnroutableEventException) {
+                meterRegistry.counter("events.outbox.unroutable").increment();
+                return true;
+            }
+            return false;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void refreshStats() {
+        try {
+            OutboxRepository.Stats stats = outboxRepository.stats();
+            pending.set(stats.pending());
+            lagMillis.set(stats.oldestCreatedAt() == null ? 0
+                    : Math.max(0, Duration.between(stats.oldestCreatedAt(), LocalDateTime.now()).toMillis()));
+        } catch (RuntimeException e) {
+            log.warn("Unable to read outbox statistics: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        relay.shutdownNow();
+        relay.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
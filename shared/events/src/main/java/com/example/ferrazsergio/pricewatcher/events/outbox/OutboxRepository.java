@@ -0,0 +1,81 @@
+package com.example.ferrazsergio.pricewatcher.events.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access to the service's outbox table ({@code events.outbox.table})
+ */
+@Repository
+@ConditionalOnProperty(prefix = "events.outbox", name = "table")
+public class OutboxRepository {
+
+    private static final RowMapper<OutboxMessage> ROW_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("id"),
+            rs.getString("aggregate_type"),
+            rs.getString("aggregate_id"),
+            rs.getString("exchange"),
+            rs.getString("routing_key"),
+            rs.getString("content_type"),
+            rs.getString("type_id"),
+            rs.getBytes("payload")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final String claimSql;
+    private final String deleteSql;
+    private final String statsSql;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate, @Value("${events.outbox.table}") String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "INSERT INTO " + table + " (aggregate_type, aggregate_id, exchange, routing_key, " +
+                "content_type, type_id, payload, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        // Only the oldest message of each aggregate is eligible, and it stays in place until it has been
+        // published, so an aggregate's messages go out in order even with several relays
+        this.claimSql = "SELECT id, aggregate_type, aggregate_id, exchange, routing_key, content_type, type_id, " +
+                "payload FROM " + table + " o WHERE NOT EXISTS (SELECT 1 FROM " + table + " p " +
+                "WHERE p.aggregate_type = o.aggregate_type AND p.aggregate_id = o.aggregate_id AND p.id < o.id) " +
+                "ORDER BY o.id LIMIT ? FOR UPDATE SKIP LOCKED";
+        this.deleteSql = "DELETE FROM " + table + " WHERE id = ?";
+        this.statsSql = "SELECT COUNT(*), MIN(created_at) FROM " + table;
+    }
+
+    public void insert(String aggregateType, String aggregateId, String exchange, String routingKey,
+                       String contentType, String typeId, byte[] payload) {
+        jdbcTemplate.update(insertSql, aggregateType, aggregateId, exchange, routingKey, contentType, typeId,
+                payload, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Locks up to {@code limit} publishable messages, oldest first, skipping those locked by other relays.
+     * Must run in a transaction, which holds the locks until the messages are deleted.
+     */
+    public List<OutboxMessage> claimBatch(int limit) {
+        return jdbcTemplate.query(claimSql, ROW_MAPPER, limit);
+    }
+
+    public void delete(List<Long> ids) {
+        jdbcTemplate.batchUpdate(deleteSql, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Number of waiting messages and the creation time of the oldest one, null when empty
+     */
+    public Stats stats() {
+        return jdbcTemplate.queryForObject(statsSql, (rs, rowNum) -> {
+            Timestamp oldest = rs.getTimestamp(2);
+            return new Stats(rs.getLong(1), oldest != null ? oldest.toLocalDateTime() : null);
+        });
+    }
+
+    public record Stats(long pending, LocalDateTime oldestCreatedAt) {
+    }
+}
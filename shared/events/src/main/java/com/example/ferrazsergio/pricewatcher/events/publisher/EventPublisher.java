@@ -0,0 +1,243 @@
+package com.example.ferrazsergio.pricewatcher.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes events asynchronously and tracks publisher confirms.
+ * <p>
+ * {@link #publish} only enqueues the event and returns a future that completes once the broker has
+ * confirmed it, so callers never wait for a broker round trip. A single sender thread drains the queue
+ * in batches of {@code events.publisher.batch-size} and sends each batch on one channel of the
+ * template's publisher connection. Confirms are correlated per event: nacked events are sent again up
+ * to {@code max-attempts} times, while events the broker returned as unroutable fail right away.
+ * Without {@code spring.rabbitmq.publisher-confirm-type: correlated} an event counts as published once
+ * it has been written to the channel.
+ * <p>
+ * The sender thread runs between lifecycle start and stop. Its phase stops it after the web server and
+ * the listener containers, so events published by in-flight requests and messages are still sent.
+ */
+@Slf4j
+@Component
+public class EventPublisher implements SmartLifecycle {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer confirmTimer;
+    private final BlockingQueue<PendingEvent> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long offerTimeout;
+    private ExecutorService sender;
+    private volatile boolean running;
+
+    public EventPublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                          @Value("${events.publisher.queue-capacity:10000}") int queueCapacity,
+                          @Value("${events.publisher.batch-size:100}") int batchSize,
+                          @Value("${events.publisher.max-attempts:3}") int maxAttempts,
+                          @Value("${events.publisher.offer-timeout:1000}") long offerTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.offerTimeout = offerTimeout;
+        this.confirmTimer = Timer.builder("events.publish.latency")
+                .description("Time from enqueueing an event until the broker confirmed it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("events.publish.pending", queue, BlockingQueue::size);
+    }
+
+    /**
+     * Enqueues an event for publishing. Waits up to {@code events.publisher.offer-timeout} milliseconds
+     * while the queue is full and throws if it stays full, rather than dropping the event.
+     */
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Object event) {
+        PendingEvent pending = new PendingEvent(exchange, routingKey, event);
+        boolean queued;
+        try {
+            queued = running && queue.offer(pending, offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            meterRegistry.counter("events.publish.rejected").increment();
+            throw new AmqpException("Unable to enqueue event for " + routingKey + ", the publish queue is full");
+        }
+        return pending.published;
+    }
+
+    private void drain() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            PendingEvent first;
+            try {
+                first = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            send(batch);
+            batch.clear();
+        }
+        PendingEvent left;
+        while ((left = queue.poll()) != null) {
+            fail(left, "publisher was shut down");
+        }
+    }
+
+    private void send(List<PendingEvent> batch) {
+        boolean confirms = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        try {
+            // All sends of the callback share one channel
+            rabbitTemplate.invoke(operations -> {
+                for (PendingEvent pending : batch) {
+                    pending.attempts++;
+                    CorrelationData correlation = new CorrelationData();
+                    if (confirms) {
+                        correlation.getFuture().whenComplete((confirm, error) -> {
+                            boolean ack = error == null && confirm.isAck();
+                            String reason = error != null ? error.getMessage() : confirm.getReason();
+                            onConfirm(pending, correlation, ack, reason);
+                        });
+                    }
+                    try {
+                        operations.convertAndSend(pending.exchange, pending.routingKey, pending.event, correlation);
+                    } catch (AmqpException e) {
+                        retryOrFail(pending, e.getMessage());
+                        continue;
+                    }
+                    if (!confirms) {
+                        complete(pending);
+                    }
+                }
+                return null;
+            });
+        } catch (AmqpException e) {
+            // No channel could be obtained, so nothing of the batch was sent
+            log.warn("Failed to publish a batch of {} events: {}", batch.size(), e.getMessage());
+            for (PendingEvent pending : batch) {
+                if (!pending.published.isDone()) {
+                    retryOrFail(pending, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void onConfirm(PendingEvent pending, CorrelationData correlation, boolean ack, String reason) {
+        if (correlation.getReturned() != null) {
+            // Unroutable: publishing it again would be returned again
+            meterRegistry.counter("events.publish.returned").increment();
+            log.warn("Event to {} was returned as unroutable", pending.routingKey);
+            pending.published.completeExceptionally(new UnroutableEventException("Event to " + pending.routingKey
+                    + " returned: " + correlation.getReturned().getReplyText()));
+        } else if (ack) {
+            complete(pending);
+        } else {
+            meterRegistry.counter("events.publish.nacked").increment();
+            retryOrFail(pending, reason);
+        }
+    }
+
+    private void complete(PendingEvent pending) {
+        confirmTimer.record(System.nanoTime() - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+        pending.published.complete(null);
+    }
+
+    private void retryOrFail(PendingEvent pending, String reason) {
+        if (pending.attempts < maxAttempts && running && queue.offer(pending)) {
+            meterRegistry.counter("events.publish.retried").increment();
+            return;
+        }
+        fail(pending, reason);
+    }
+
+    private void fail(PendingEvent pending, String reason) {
+        meterRegistry.counter("events.publish.failed").increment();
+        log.error("Failed to publish event to {} after {} attempts: {}", pending.routingKey, pending.attempts, reason);
+        pending.published.completeExceptionally(
+                new AmqpException("Event to " + pending.routingKey + " not published: " + reason));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        sender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        sender.submit(this::drain);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Below the web server's graceful shutdown and the listener containers, so it starts before them and
+     * stops after them
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static final class PendingEvent {
+        private final String exchange;
+        private final String routingKey;
+        private final Object event;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> published = new CompletableFuture<>();
+        private volatile int attempts;
+
+        private PendingEvent(String exchange, String routingKey, Object event) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.event = event;
+        }
+    }
+}
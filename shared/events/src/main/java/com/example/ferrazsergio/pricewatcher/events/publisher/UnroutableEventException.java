@@ -0,0 +1,14 @@
+package com.example.ferrazsergio.pricewatcher.events.publisher;
+
+import org.springframework.amqp.AmqpException;
+
+/**
+ * An event the broker returned because no queue is bound to its routing key. Publishing it again
+ * would have the same outcome.
+ */
+public class UnroutableEventException extends AmqpException {
+
+    public UnroutableEventException(String message) {
+        super(message);
+    }
+}
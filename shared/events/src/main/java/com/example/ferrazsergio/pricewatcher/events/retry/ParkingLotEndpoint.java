@@ -0,0 +1,75 @@
+package com.example.ferrazsergio.pricewatcher.events.retry;
+
+import com.example.ferrazsergio.pricewatcher.events.config.QueueTransfer;
+import com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig;
+import com.example.ferrazsergio.pricewatcher.events.routing.PriceChangePartitioner;
+import com.rabbitmq.client.AMQP;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/parkinglot}) listing parked messages per work queue and replaying
+ * them: {@code POST /actuator/parkinglot/<queue>} moves up to {@code limit} messages, oldest first, back
+ * to the queue with their retry count reset.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "parkinglot")
+@RequiredArgsConstructor
+public class ParkingLotEndpoint {
+
+    private static final int DEFAULT_REPLAY_LIMIT = 1000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final PriceChangePartitioner partitioner;
+
+    @ReadOperation
+    public Map<String, Integer> parkedMessages() {
+        Map<String, Integer> parked = new LinkedHashMap<>();
+        for (String queue : RabbitMQConfig.workQueueNames(partitioner)) {
+            QueueInformation information = amqpAdmin.getQueueInfo(RabbitMQConfig.parkingLotName(queue));
+            if (information != null && information.getMessageCount() > 0) {
+                parked.put(queue, information.getMessageCount());
+            }
+        }
+        return parked;
+    }
+
+    @WriteOperation
+    public Map<String, Object> replay(@Selector String queue, @Nullable Integer limit) {
+        if (!RabbitMQConfig.workQueueNames(partitioner).contains(queue)) {
+            throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+        int max = limit != null ? limit : DEFAULT_REPLAY_LIMIT;
+        String parkingLot = RabbitMQConfig.parkingLotName(queue);
+        // Acknowledged on the parking lot only once confirmed on the queue, so a failure leaves them parked
+        Integer replayed = rabbitTemplate.execute(channel ->
+                QueueTransfer.move(channel, parkingLot, queue, max, ParkingLotEndpoint::withoutRetryHeaders));
+        log.info("Replayed {} parked messages to {}", replayed, queue);
+        return Map.of("queue", queue, "replayed", replayed);
+    }
+
+    private static AMQP.BasicProperties withoutRetryHeaders(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = properties.getHeaders() != null
+                ? new HashMap<>(properties.getHeaders())
+                : new HashMap<>();
+        headers.remove(TieredRetryRecoverer.RETRY_COUNT_HEADER);
+        headers.remove(TieredRetryRecoverer.EXCEPTION_HEADER);
+        headers.remove("x-death");
+        return properties.builder().headers(headers).build();
+    }
+}
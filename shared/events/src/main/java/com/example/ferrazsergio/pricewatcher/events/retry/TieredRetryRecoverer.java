@@ -0,0 +1,93 @@
+package com.example.ferrazsergio.pricewatcher.events.retry;
+
+import com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves messages whose listener failed through the retry tiers of the queue they were consumed from,
+ * then to its parking lot (see {@link RabbitMQConfig#deadLetterTopology}). The failed delivery itself is
+ * acknowledged, so a poison message never loops on a consumer.
+ */
+@Slf4j
+@Component
+public class TieredRetryRecoverer implements MessageBatchRecoverer {
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String EXCEPTION_HEADER = "x-exception-message";
+
+    private static final int MAX_EXCEPTION_LENGTH = 1000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int tiers;
+
+    public TieredRetryRecoverer(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                                @Value("${events.retry.delays:5000,30000,300000}") long[] retryDelays) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tiers = retryDelays.length;
+    }
+
+    /**
+     * Listener advice that hands every failed delivery, single or batch, to this recoverer
+     */
+    public MethodInterceptor interceptor() {
+        return RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(this)
+                .build();
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = properties.getConsumerQueue();
+        if (queue == null) {
+            // Without its queue the message cannot be routed back; let the broker dead-letter it
+            throw new AmqpRejectAndDontRequeueException("Failed message has no consumer queue", cause);
+        }
+        Object retries = properties.getHeaders().get(RETRY_COUNT_HEADER);
+        int attempt = retries instanceof Number number ? number.intValue() : 0;
+        properties.setHeader(EXCEPTION_HEADER, describe(cause));
+
+        if (attempt < tiers) {
+            properties.setHeader(RETRY_COUNT_HEADER, attempt + 1);
+            rabbitTemplate.send(RabbitMQConfig.RETRY_EXCHANGE, RabbitMQConfig.retryQueueName(queue, attempt), message);
+            meterRegistry.counter("events.consume.retried", "queue", queue).increment();
+        } else {
+            log.warn("Parking message from {} after {} retries: {}", queue, attempt, describe(cause));
+            rabbitTemplate.send(RabbitMQConfig.DEAD_LETTER_EXCHANGE, queue, message);
+            meterRegistry.counter("events.consume.parked", "queue", queue).increment();
+        }
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        for (Message message : messages) {
+            recover(message, cause);
+        }
+    }
+
+    private static String describe(Throwable cause) {
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String description = root.getClass().getSimpleName() + ": " + root.getMessage();
+        return description.length() > MAX_EXCEPTION_LENGTH
+                ? description.substring(0, MAX_EXCEPTION_LENGTH)
+                : description;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.ferrazsergio.pricewatcher.events.routing;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.ferrazsergio.pricewatcher.events.config.RabbitMQConfig.PRICE_CHANGE_ROUTING_KEY;
+
+/**
+ * Partitions the price change stream by product.
+ * <p>
+ * A product's changes are always published with the routing key of its partition,
+ * {@code price.change.detected.<partition>}, and each consuming service binds one queue per partition,
+ * {@code <queue>.<partition>}, consumed by a single active consumer. Updates of one product therefore
+ * stay in order while different partitions are consumed in parallel. Partitions are chosen by jump
+ * consistent hashing, so changing {@code events.price-change.partitions} moves only the products that
+ * must move; producers and consumers must agree on it.
+ * <p>
+ * Consumers split the partitions among their replicas: the replica with
+ * {@code events.price-change.instance-index} {@code i} of {@code instance-count} consumes the partitions
+ * {@code p} with {@code p % instance-count == i}.
+ */
+@Getter
+@Component
+public class PriceChangePartitioner {
+
+    private final int partitions;
+    private final int instanceIndex;
+    private final int instanceCount;
+
+    public PriceChangePartitioner(@Value("${events.price-change.partitions:8}") int partitions,
+                                  @Value("${events.price-change.instance-index:0}") int instanceIndex,
+                                  @Value("${events.price-change.instance-count:1}") int instanceCount) {
+        if (partitions < 1 || instanceCount < 1 || instanceIndex < 0 || instanceIndex >= instanceCount) {
+            throw new IllegalArgumentException("Invalid price change partitioning: " + partitions
+                    + " partitions, instance " + instanceIndex + " of " + instanceCount);
+        }
+        this.partitions = partitions;
+        this.instanceIndex = instanceIndex;
+        this.instanceCount = instanceCount;
+    }
+
+    public int partitionOf(long productId) {
+        return jumpHash(productId, partitions);
+    }
+
+    public String routingKey(long productId) {
+        return routingKeyOf(partitionOf(productId));
+    }
+
+    public String routingKeyOf(int partition) {
+        return PRICE_CHANGE_ROUTING_KEY + "." + partition;
+    }
+
+    public static String queueName(String queue, int partition) {
+        return queue + "." + partition;
+    }
+
+    /**
+     * Partition queues of the given consumer queue that this replica consumes
+     */
+    public List<String> assignedQueues(String queue) {
+        List<String> assigned = new ArrayList<>();
+        for (int partition = instanceIndex; partition < partitions; partition += instanceCount) {
+            assigned.add(queueName(queue, partition));
+        }
+        return assigned;
+    }
+
+    /**
+     * Jump consistent hash (Lamping and Veach), mapping a key to one of {@code buckets} buckets
+     */
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
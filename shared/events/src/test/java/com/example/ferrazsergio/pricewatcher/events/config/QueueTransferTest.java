@@ -0,0 +1,85 @@
+package com.example.ferrazsergio.pricewatcher.events.config;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueueTransferTest {
+
+    @Mock
+    private Channel channel;
+
+    @Test
+    void acknowledgesEachBatchOnlyOnceItIsConfirmed() throws Exception {
+        when(channel.basicGet("from", false)).thenReturn(message(1), message(2), message(3), null);
+
+        assertThat(QueueTransfer.move(channel, "from", "to", 10, UnaryOperator.identity())).isEqualTo(3);
+
+        InOrder order = inOrder(channel);
+        order.verify(channel).queueDeclarePassive("to");
+        order.verify(channel).confirmSelect();
+        order.verify(channel, times(3)).basicPublish(eq(""), eq("to"), any(), any());
+        order.verify(channel).waitForConfirmsOrDie(anyLong());
+        order.verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    void stopsAtTheLimit() throws Exception {
+        when(channel.basicGet("from", false)).thenReturn(message(1), message(2), message(3));
+
+        assertThat(QueueTransfer.move(channel, "from", "to", 2, UnaryOperator.identity())).isEqualTo(2);
+
+        verify(channel).basicAck(2, true);
+    }
+
+    @Test
+    void leavesUnconfirmedMessagesOnTheSourceQueue() throws Exception {
+        when(channel.basicGet("from", false)).thenReturn(message(1), (GetResponse) null);
+        doThrow(new TimeoutException("no confirm")).when(channel).waitForConfirmsOrDie(anyLong());
+
+        assertThatThrownBy(() -> QueueTransfer.move(channel, "from", "to", 10, UnaryOperator.identity()))
+                .isInstanceOf(TimeoutException.class);
+
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void refusesToMoveToAMissingQueue() throws Exception {
+        when(channel.queueDeclarePassive("to")).thenThrow(new IOException("NOT_FOUND"));
+
+        assertThatThrownBy(() -> QueueTransfer.move(channel, "from", "to", 10, UnaryOperator.identity()))
+                .isInstanceOf(IOException.class);
+
+        verify(channel, never()).basicGet(anyString(), anyBoolean());
+    }
+
+    private static GetResponse message(long deliveryTag) {
+        return new GetResponse(new Envelope(deliveryTag, false, "", "from"), new AMQP.BasicProperties(),
+                new byte[]{1}, 0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ferrazsergio.pricewatcher.events.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxRepositoryTest {
+
+    private EmbeddedDatabase database;
+    private OutboxRepository repository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("""
+                CREATE TABLE test_outbox (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    aggregate_type VARCHAR(100) NOT NULL,
+                    aggregate_id VARCHAR(100) NOT NULL,
+                    exchange VARCHAR(255) NOT NULL,
+                    routing_key VARCHAR(255) NOT NULL,
+                    content_type VARCHAR(100),
+                    type_id VARCHAR(255),
+                    payload VARBINARY NOT NULL,
+                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )""");
+        repository = new OutboxRepository(jdbcTemplate, "test_outbox");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void claimsOnlyTheOldestMessageOfEachAggregate() {
+        insert("Product", "1", "created");
+        insert("Product", "2", "created");
+        insert("Product", "1", "updated");
+
+        List<OutboxMessage> claimed = claim(10);
+
+        assertThat(claimed).extracting(OutboxMessage::aggregateId).containsExactly("1", "2");
+        assertThat(new String(claimed.get(0).payload(), StandardCharsets.UTF_8)).isEqualTo("created");
+        assertThat(claimed.get(0).toMessage().getMessageProperties().getContentType())
+                .isEqualTo("application/json");
+    }
+
+    @Test
+    void releasesTheNextMessageOfAnAggregateOnceTheOldestIsDeleted() {
+        insert("Product", "1", "created");
+        insert("Product", "1", "updated");
+        insert("Product", "1", "deleted");
+
+        repository.delete(List.of(claim(10).get(0).id()));
+        List<OutboxMessage> next = claim(10);
+
+        assertThat(next).hasSize(1);
+        assertThat(new String(next.get(0).payload(), StandardCharsets.UTF_8)).isEqualTo("updated");
+        assertThat(repository.stats().pending()).isEqualTo(2);
+    }
+
+    @Test
+    void claimsUpToTheLimitOldestFirst() {
+        for (int i = 1; i <= 5; i++) {
+            insert("User", String.valueOf(i), "created");
+        }
+
+        assertThat(claim(3)).extracting(OutboxMessage::aggregateId).containsExactly("1", "2", "3");
+    }
+
+    @Test
+    void skipsMessagesClaimedByAnotherRelay() throws Exception {
+        insert("User", "1", "created");
+        insert("User", "2", "created");
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<OutboxMessage>> first = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> {
+                    List<OutboxMessage> batch = repository.claimBatch(1);
+                    claimed.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return batch;
+                }));
+        assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+        List<OutboxMessage> second = claim(10);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).extracting(OutboxMessage::aggregateId).containsExactly("1");
+        assertThat(second).extracting(OutboxMessage::aggregateId).containsExactly("2");
+    }
+
+    @Test
+    void deletesTheGivenMessages() {
+        insert("User", "1", "created");
+        insert("User", "2", "created");
+        List<OutboxMessage> claimed = claim(10);
+
+        repository.delete(List.of(claimed.get(0).id(), claimed.get(1).id()));
+
+        assertThat(repository.stats().pending()).isZero();
+        assertThat(repository.stats().oldestCreatedAt()).isNull();
+    }
+
+    private void insert(String aggregateType, String aggregateId, String payload) {
+        repository.insert(aggregateType, aggregateId, "price-watcher-exchange", "routing.key", "application/json",
+                null, payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        return transactionTemplate.execute(status -> repository.claimBatch(limit));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.ferrazsergio.pricewatcher.events.publisher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventPublisherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    /**
+     * Correlation of every send, in order, for the test to confirm
+     */
+    private final BlockingQueue<CorrelationData> sent = new LinkedBlockingQueue<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        lenient().when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        lenient().when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+        lenient().doAnswer(invocation -> sent.add(invocation.getArgument(3)))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+        publisher = new EventPublisher(rabbitTemplate, meterRegistry, 100, 10, MAX_ATTEMPTS, 100);
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+    }
+
+    @Test
+    void completesOnceTheBrokerAcks() throws Exception {
+        CompletableFuture<Void> published = publisher.publish("exchange", "price.change.detected", "event");
+
+        CorrelationData correlation = nextSend();
+        assertThat(published).isNotDone();
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        assertThat(published).isCompleted();
+        assertThat(meterRegistry.get("events.publish.latency").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsANackedEventAgainUpToMaxAttempts() throws Exception {
+        CompletableFuture<Void> published = publisher.publish("exchange", "price.change.detected", "event");
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertThat(published).isNotDone();
+            nextSend().getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+        }
+
+        assertThat(published).isCompletedExceptionally();
+        assertThatThrownBy(published::join).hasCauseInstanceOf(AmqpException.class).hasMessageContaining("nack");
+        assertThat(sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(meterRegistry.get("events.publish.retried").counter().count()).isEqualTo(MAX_ATTEMPTS - 1);
+    }
+
+    @Test
+    void failsAReturnedEventWithoutSendingItAgain() throws Exception {
+        CompletableFuture<Void> published = publisher.publish("exchange", "no.such.key", "event");
+
+        CorrelationData correlation = nextSend();
+        correlation.setReturned(new ReturnedMessage(new Message(new byte[0], new MessageProperties()), 312,
+                "NO_ROUTE", "exchange", "no.such.key"));
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        assertThatThrownBy(published::join).hasCauseInstanceOf(UnroutableEventException.class);
+        assertThat(sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void retriesAnEventTheChannelRefused() throws Exception {
+        doAnswer(invocation -> {
+            throw new AmqpException("channel closed");
+        }).doAnswer(invocation -> sent.add(invocation.getArgument(3)))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+
+        CompletableFuture<Void> published = publisher.publish("exchange", "price.change.detected", "event");
+        nextSend().getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        assertThat(published).isCompleted();
+    }
+
+    @Test
+    void rejectsEventsOnceStopped() {
+        publisher.stop();
+
+        assertThatThrownBy(() -> publisher.publish("exchange", "price.change.detected", "event"))
+                .isInstanceOf(AmqpException.class);
+        assertThat(meterRegistry.get("events.publish.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsTheEventsStillQueuedWhenStopped() throws Exception {
+        when(connectionFactory.isPublisherConfirms()).thenReturn(false);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            resume.await(5, TimeUnit.SECONDS);
+            return null;
+        }).doNothing().when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(CorrelationData.class));
+
+        CompletableFuture<Void> inFlight = publisher.publish("exchange", "price.change.detected", "first");
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        List<CompletableFuture<Void>> queued = List.of(
+                publisher.publish("exchange", "price.change.detected", "second"),
+                publisher.publish("exchange", "price.change.detected", "third"));
+        Thread stopping = new Thread(publisher::stop);
+        stopping.start();
+        while (publisher.isRunning()) {
+            Thread.sleep(10);
+        }
+        resume.countDown();
+        stopping.join(5000);
+
+        assertThat(inFlight).isCompleted();
+        assertThat(queued).allSatisfy(future -> assertThat(future).isCompleted());
+    }
+
+    @Test
+    void failsANackedEventInsteadOfRetryingOnceStopped() throws Exception {
+        CompletableFuture<Void> published = publisher.publish("exchange", "price.change.detected", "event");
+        CorrelationData correlation = nextSend();
+
+        publisher.stop();
+        correlation.getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+
+        assertThat(published).isCompletedExceptionally();
+        assertThat(meterRegistry.get("events.publish.failed").counter().count()).isEqualTo(1);
+    }
+
+    private CorrelationData nextSend() throws InterruptedException {
+        CorrelationData correlation = sent.poll(5, TimeUnit.SECONDS);
+        assertThat(correlation).as("event sent").isNotNull();
+        return correlation;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ferrazsergio.pricewatcher.events.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceChangePartitionerTest {
+
+    @Test
+    void routesEachProductToAStablePartition() {
+        PriceChangePartitioner partitioner = new PriceChangePartitioner(8, 0, 1);
+
+        for (long productId = 1; productId <= 1000; productId++) {
+            int partition = partitioner.partitionOf(productId);
+            assertThat(partition).isBetween(0, 7).isEqualTo(partitioner.partitionOf(productId));
+            assertThat(partitioner.routingKey(productId)).isEqualTo("price.change.detected." + partition);
+        }
+    }
+
+    @Test
+    void onlyMovesKeysToTheNewBucketWhenGrowing() {
+        for (int buckets = 1; buckets < 16; buckets++) {
+            int grown = buckets + 1;
+            for (long key = 0; key < 10_000; key++) {
+                int before = PriceChangePartitioner.jumpHash(key, buckets);
+                int after = PriceChangePartitioner.jumpHash(key, grown);
+                if (after != before) {
+                    assertThat(after).isEqualTo(buckets);
+                }
+            }
+        }
+    }
+
+    @Test
+    void spreadsSequentialIdsEvenly() {
+        int buckets = 8;
+        int keys = 100_000;
+        long[] counts = new long[buckets];
+        LongStream.rangeClosed(1, keys).forEach(key -> counts[PriceChangePartitioner.jumpHash(key, buckets)]++);
+
+        long expected = keys / buckets;
+        for (long count : counts) {
+            assertThat(count).isBetween(expected * 95 / 100, expected * 105 / 100);
+        }
+    }
+
+    @Test
+    void assignsPartitionQueuesRoundRobinAcrossInstances() {
+        PriceChangePartitioner partitioner = new PriceChangePartitioner(8, 1, 3);
+
+        assertThat(partitioner.assignedQueues("analytics-queue.v2"))
+                .containsExactly("analytics-queue.v2.1", "analytics-queue.v2.4", "analytics-queue.v2.7");
+    }
+
+    @Test
+    void rejectsAnInstanceOutsideTheGroup() {
+        assertThatThrownBy(() -> new PriceChangePartitioner(8, 3, 3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PriceChangePartitioner(0, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
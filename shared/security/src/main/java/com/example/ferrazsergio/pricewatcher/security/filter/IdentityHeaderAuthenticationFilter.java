@@ -0,0 +1,46 @@
+package com.example.ferrazsergio.pricewatcher.security.filter;
+
+import com.example.ferrazsergio.pricewatcher.security.identity.IdentityHeaders;
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Authenticates requests from the identity headers the API gateway adds once it has verified the JWT,
+ * so the token is not verified again on every hop. Requests without validly signed headers are left to
+ * {@link JwtAuthenticationFilter}; install this filter before it.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdentityHeaderAuthenticationFilter extends OncePerRequestFilter {
+
+    private final IdentityHeaders identityHeaders;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<AuthenticatedUser> user = identityHeaders.verify(request::getHeader);
+            if (user.isPresent()) {
+                UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(user.get(), null, user.get().authorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.ferrazsergio.pricewatcher.security.filter;
 
-import com.example.ferrazsergio.pricewatcher.security.jwt.JwtTokenUtil;
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
+import com.example.ferrazsergio.pricewatcher.security.jwt.VerifiedToken;
+import com.example.ferrazsergio.pricewatcher.security.jwt.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,54 +11,48 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
- * JWT Authentication Filter to validate tokens on each request
+ * JWT Authentication Filter to validate tokens on each request.
+ * The principal is an {@link AuthenticatedUser} built from the token's claims, so no user lookup is made.
+ * Tokens are verified through the {@link VerifiedTokenCache}, which also rejects revoked tokens. Requests
+ * already authenticated from the gateway's identity headers are left alone.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenUtil jwtTokenUtil;
-    private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                   FilterChain filterChain) throws ServletException, IOException {
-        
-        final String requestTokenHeader = request.getHeader("Authorization");
-
-        String username = null;
-        String jwtToken = null;
 
-        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
-            } catch (Exception e) {
-                log.warn("Unable to get JWT Token or token has expired");
-            }
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        final String requestTokenHeader = request.getHeader("Authorization");
 
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<VerifiedToken> verified = verifiedTokenCache.verify(requestTokenHeader.substring(7));
+            if (verified.isEmpty()) {
+                log.warn("Unable to get JWT Token or token has expired or was revoked");
+            } else if (verified.get().isRefreshToken()) {
+                log.warn("Refresh token used to authenticate a request");
+            } else {
+                AuthenticatedUser user = AuthenticatedUser.from(verified.get());
+                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+                    new UsernamePasswordAuthenticationToken(user, null, user.authorities());
                 usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
             }
         }
-        
+
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
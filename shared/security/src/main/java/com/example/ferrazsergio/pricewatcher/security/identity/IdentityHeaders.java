@@ -0,0 +1,130 @@
+package com.example.ferrazsergio.pricewatcher.security.identity;
+
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Identity headers the API gateway adds to a request after verifying its JWT.
+ * <p>
+ * The headers carry the authenticated user and are signed with HMAC-SHA256 using
+ * {@code identity.secret}, a key shared only by the gateway and the services. A service that finds
+ * validly signed headers trusts them instead of verifying the JWT again; the signature covers a timestamp
+ * and is only accepted for {@code identity.max-age} milliseconds, which limits replaying captured headers.
+ * Checking the signature is much cheaper than verifying and decoding the JWT.
+ */
+@Slf4j
+@Component
+public class IdentityHeaders {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_NAME = "X-User-Name";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String TOKEN_ID = "X-Token-Id";
+    public static final String TOKEN_EXPIRES_AT = "X-Token-Expires-At";
+    public static final String TIMESTAMP = "X-Identity-Timestamp";
+    public static final String SIGNATURE = "X-Identity-Signature";
+
+    public static final List<String> ALL = List.of(USER_ID, USER_NAME, USER_ROLES, TOKEN_ID, TOKEN_EXPIRES_AT,
+            TIMESTAMP, SIGNATURE);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long maxAge;
+    private final ThreadLocal<Mac> mac;
+
+    public IdentityHeaders(@Value("${identity.secret:defaultIdentitySecretThatShouldBeChangedInProduction}")
+                           String secret,
+                           @Value("${identity.max-age:30000}") long maxAge) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.maxAge = maxAge;
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialise " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Headers identifying the user, signed as of now
+     */
+    public Map<String, String> sign(AuthenticatedUser user) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(USER_ID, user.id() != null ? String.valueOf(user.id()) : "");
+        headers.put(USER_NAME, URLEncoder.encode(user.username(), StandardCharsets.UTF_8));
+        headers.put(USER_ROLES, String.join(",", user.roles()));
+        headers.put(TOKEN_ID, user.tokenId() != null ? user.tokenId() : "");
+        headers.put(TOKEN_EXPIRES_AT, String.valueOf(user.tokenExpiresAt()));
+        headers.put(TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+        headers.put(SIGNATURE, signature(headers::get));
+        return headers;
+    }
+
+    /**
+     * Reads the user from the request's headers, or returns empty when there are none, or when they are
+     * not validly signed or too old
+     */
+    public Optional<AuthenticatedUser> verify(UnaryOperator<String> header) {
+        String signature = header.apply(SIGNATURE);
+        if (signature == null) {
+            return Optional.empty();
+        }
+        try {
+            long age = System.currentTimeMillis() - Long.parseLong(header.apply(TIMESTAMP));
+            if (age > maxAge || age < -maxAge) {
+                log.warn("Rejected identity headers signed {} ms ago", age);
+                return Optional.empty();
+            }
+            if (!MessageDigest.isEqual(signature.getBytes(StandardCharsets.US_ASCII),
+                    signature(header).getBytes(StandardCharsets.US_ASCII))) {
+                log.warn("Rejected identity headers with an invalid signature");
+                return Optional.empty();
+            }
+            String userId = header.apply(USER_ID);
+            String roles = header.apply(USER_ROLES);
+            String tokenId = header.apply(TOKEN_ID);
+            return Optional.of(new AuthenticatedUser(
+                    userId.isEmpty() ? null : Long.valueOf(userId),
+                    URLDecoder.decode(header.apply(USER_NAME), StandardCharsets.UTF_8),
+                    roles.isEmpty() ? List.of() : Arrays.asList(roles.split(",")),
+                    tokenId.isEmpty() ? null : tokenId,
+                    Long.parseLong(header.apply(TOKEN_EXPIRES_AT))));
+        } catch (RuntimeException e) {
+            // Missing or malformed headers
+            log.warn("Rejected malformed identity headers: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private String signature(UnaryOperator<String> header) {
+        StringBuilder payload = new StringBuilder();
+        for (String name : ALL) {
+            if (!SIGNATURE.equals(name)) {
+                payload.append(header.apply(name)).append('\n');
+            }
+        }
+        byte[] digest = mac.get().doFinal(payload.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Principal of a request authenticated by a JWT, built from the token's claims alone. The token's id and
+ * expiration (epoch milliseconds) are kept so the token can be revoked.
+ */
+public record AuthenticatedUser(Long id, String username, List<String> roles, String tokenId,
+                                long tokenExpiresAt) implements Principal {
+
+    public static AuthenticatedUser from(VerifiedToken token) {
+        return new AuthenticatedUser(token.userId(), token.username(), token.roles(), token.id(),
+                token.expiration() != null ? token.expiration().getTime() : 0);
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,33 +1,72 @@
 package com.example.ferrazsergio.pricewatcher.security.jwt;
 
+import com.example.ferrazsergio.pricewatcher.common.utils.TimeOrderedIds;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
- * JWT Token utility for generation and validation
+ * JWT Token utility for generation and validation.
+ * <p>
+ * The signing key and the parser are built once; both are immutable and thread-safe. Use
+ * {@link #verifyToken} to check a token and read its claims with a single parse.
+ * <p>
+ * Tokens carry the user's id and roles, so services build the principal from the token alone
+ * (see {@link AuthenticatedUser}) instead of looking the user up on every request. Role changes
+ * therefore take effect when the user's current token expires.
  */
 @Slf4j
 @Component
 public class JwtTokenUtil {
 
-    @Value("${jwt.secret:defaultSecretKeyThatShouldBeChangedInProduction}")
-    private String jwtSecret;
-
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
-    private Long jwtExpiration;
+    static final String TYPE_CLAIM = "type";
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+
+    public JwtTokenUtil(@Value("${jwt.secret:defaultSecretKeyThatShouldBeChangedInProduction}") String jwtSecret,
+                        @Value("${jwt.expiration:86400000}") long jwtExpiration, // 24 hours in milliseconds
+                        @Value("${jwt.refresh-expiration:604800000}") long refreshExpiration) { // 7 days
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+    }
 
-    @Value("${jwt.refresh-expiration:604800000}") // 7 days in milliseconds
-    private Long refreshExpiration;
+    /**
+     * Parses the token once, verifying its signature and expiration. Returns empty for a token that is
+     * malformed, forged or expired.
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        try {
+            return Optional.of(new VerifiedToken(token, getAllClaimsFromToken(token)));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
 
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
@@ -43,50 +82,63 @@ public class JwtTokenUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    public String generateToken(UserDetails userDetails) {
+        return generateToken(null, userDetails);
     }
 
-    public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), jwtExpiration);
+    public String generateToken(Long userId, UserDetails userDetails) {
+        return createToken(identityClaims(userId, userDetails), userDetails.getUsername(), jwtExpiration);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
+        return generateRefreshToken(null, userDetails);
+    }
+
+    public String generateRefreshToken(Long userId, UserDetails userDetails) {
+        Map<String, Object> claims = identityClaims(userId, userDetails);
+        claims.put(TYPE_CLAIM, REFRESH_TOKEN_TYPE);
         return createToken(claims, userDetails.getUsername(), refreshExpiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+    private Map<String, Object> identityClaims(Long userId, UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (userId != null) {
+            claims.put(USER_ID_CLAIM, userId);
+        }
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        return claims;
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, long expiration) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
+                .id(TimeOrderedIds.nextString())
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Whether the token is valid and belongs to the user. The parser already rejects expired tokens,
+     * so the token is parsed only once.
+     */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return verifyToken(token)
+                .map(verified -> verified.username().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     public Boolean isRefreshToken(String token) {
-        try {
-            Claims claims = getAllClaimsFromToken(token);
-            return "refresh".equals(claims.get("type"));
-        } catch (Exception e) {
-            return false;
-        }
+        return verifyToken(token)
+                .map(VerifiedToken::isRefreshToken)
+                .orElse(false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Replicates token revocations between instances through Redis.
+ * <p>
+ * Each revocation is published on the {@code jwt.revocation.channel} channel, which every instance
+ * subscribes to, and added to a sorted set scored by its expiration. An instance loads the unexpired
+ * revocations from the set on startup, so it also knows those published before it subscribed. When Redis
+ * is unavailable, a revocation still applies on the instance that made it but is lost to the others.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jwt.revocation", name = "replicated", havingValue = "true")
+public class RedisTokenRevocationReplicator implements DisposableBean {
+
+    private final TokenRevocationList revocationList;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String key;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public RedisTokenRevocationReplicator(TokenRevocationList revocationList, StringRedisTemplate redisTemplate,
+                                          RedisConnectionFactory connectionFactory,
+                                          @Value("${jwt.revocation.channel:jwt:revocations}") String channel,
+                                          @Value("${jwt.revocation.key:jwt:revoked}") String key) {
+        this.revocationList = revocationList;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.key = key;
+        this.listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(channel));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        loadRevocations();
+    }
+
+    @EventListener
+    public void onRevocation(TokenRevocation revocation) {
+        String encoded = revocation.encode();
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(key, encoded, revocation.expiresAt());
+            redisTemplate.opsForZSet().removeRangeByScore(key, 0, now);
+            redisTemplate.convertAndSend(channel, encoded);
+        } catch (RuntimeException e) {
+            log.error("Unable to replicate revocation of {} {}: {}", revocation.kind(), revocation.subject(),
+                    e.getMessage());
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        apply(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void apply(String encoded) {
+        try {
+            revocationList.apply(TokenRevocation.decode(encoded));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed token revocation: {}", encoded);
+        }
+    }
+
+    private void loadRevocations() {
+        try {
+            Set<String> revocations = redisTemplate.opsForZSet()
+                    .rangeByScore(key, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (revocations == null) {
+                return;
+            }
+            revocations.forEach(this::apply);
+            log.info("Loaded {} token revocations", revocations.size());
+        } catch (RuntimeException e) {
+            log.error("Unable to load token revocations: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+    }
+}
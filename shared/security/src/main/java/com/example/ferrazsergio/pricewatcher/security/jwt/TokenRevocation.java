@@ -0,0 +1,42 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+/**
+ * Revocation of a single token (by its id) or of all tokens a user was issued before a point in time.
+ * The revocation only needs to be remembered until {@code expiresAt}, when every token it covers has
+ * expired anyway. Times are epoch milliseconds.
+ */
+public record TokenRevocation(Kind kind, String subject, long revokedBefore, long expiresAt) {
+
+    public enum Kind {
+        TOKEN,
+        USER
+    }
+
+    public static TokenRevocation token(String tokenId, long expiresAt) {
+        return new TokenRevocation(Kind.TOKEN, tokenId, 0, expiresAt);
+    }
+
+    public static TokenRevocation user(Long userId, long revokedBefore, long expiresAt) {
+        return new TokenRevocation(Kind.USER, String.valueOf(userId), revokedBefore, expiresAt);
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    /**
+     * Compact form used to replicate the revocation; the subject goes last as it may contain spaces
+     */
+    public String encode() {
+        return kind + " " + revokedBefore + " " + expiresAt + " " + subject;
+    }
+
+    public static TokenRevocation decode(String encoded) {
+        String[] parts = encoded.split(" ", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed token revocation: " + encoded);
+        }
+        return new TokenRevocation(Kind.valueOf(parts[0]), parts[3], Long.parseLong(parts[1]),
+                Long.parseLong(parts[2]));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+import com.example.ferrazsergio.pricewatcher.common.utils.TimeOrderedIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory list of revoked tokens, checked on every authenticated request.
+ * <p>
+ * A token is revoked on its own by its id (logout), or together with every other token its user was
+ * issued before a point in time (password change, account removal). Revocations made through this class
+ * are published as application events, which {@link RedisTokenRevocationReplicator} forwards to the
+ * other instances when {@code jwt.revocation.replicated} is enabled. Entries are dropped once every token
+ * they cover has expired.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final Map<String, TokenRevocation> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, TokenRevocation> revokedUsers = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher eventPublisher;
+    private final long longestTokenLifetime;
+
+    public TokenRevocationList(ApplicationEventPublisher eventPublisher,
+                               @Value("${jwt.expiration:86400000}") long jwtExpiration,
+                               @Value("${jwt.refresh-expiration:604800000}") long refreshExpiration) {
+        this.eventPublisher = eventPublisher;
+        this.longestTokenLifetime = Math.max(jwtExpiration, refreshExpiration);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.id();
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        Long userId = token.userId();
+        if (userId == null) {
+            return false;
+        }
+        TokenRevocation revocation = revokedUsers.get(String.valueOf(userId));
+        return revocation != null && issuedBefore(token, revocation.revokedBefore());
+    }
+
+    /**
+     * Compares the millisecond issue time held by a time-ordered token id. Tokens without one only have
+     * the second-precision {@code iat}, so a token issued later within the second of the revocation is
+     * treated as issued before it.
+     */
+    private static boolean issuedBefore(VerifiedToken token, long revokedBefore) {
+        OptionalLong idMillis = TimeOrderedIds.millisOf(token.id());
+        if (idMillis.isPresent()) {
+            return idMillis.getAsLong() < revokedBefore;
+        }
+        Date issuedAt = token.issuedAt();
+        return issuedAt == null || issuedAt.getTime() < (revokedBefore + 999) / 1000 * 1000;
+    }
+
+    /**
+     * Revokes the token the user authenticated with, as on logout. Returns false for a token issued
+     * without an id.
+     */
+    public boolean revokeToken(AuthenticatedUser user) {
+        if (user.tokenId() == null) {
+            log.warn("Unable to revoke a token of {} without an id", user.username());
+            return false;
+        }
+        revoke(TokenRevocation.token(user.tokenId(), user.tokenExpiresAt()));
+        return true;
+    }
+
+    /**
+     * Revokes every token issued to the user until now, the current millisecond included
+     */
+    public void revokeUser(Long userId) {
+        long revokedBefore = System.currentTimeMillis() + 1;
+        revoke(TokenRevocation.user(userId, revokedBefore, revokedBefore + longestTokenLifetime));
+    }
+
+    private void revoke(TokenRevocation revocation) {
+        apply(revocation);
+        eventPublisher.publishEvent(revocation);
+    }
+
+    /**
+     * Adds a revocation to this instance only, such as one received from another instance
+     */
+    public void apply(TokenRevocation revocation) {
+        long now = System.currentTimeMillis();
+        if (revocation.isExpired(now)) {
+            return;
+        }
+        switch (revocation.kind()) {
+            case TOKEN -> revokedTokens.put(revocation.subject(), revocation);
+            case USER -> revokedUsers.merge(revocation.subject(), revocation, (current, added) ->
+                    added.revokedBefore() >= current.revokedBefore() ? added : current);
+        }
+        // Revocations are rare, so expired entries are purged whenever one is added
+        revokedTokens.values().removeIf(entry -> entry.isExpired(now));
+        revokedUsers.values().removeIf(entry -> entry.isExpired(now));
+    }
+}
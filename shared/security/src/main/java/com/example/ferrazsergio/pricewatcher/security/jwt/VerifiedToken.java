@@ -0,0 +1,53 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature and expiration have been verified
+ */
+public record VerifiedToken(String token, Claims claims) {
+
+    public String username() {
+        return claims.getSubject();
+    }
+
+    /**
+     * Id of the token, used to revoke it, or null for a token issued without one
+     */
+    public String id() {
+        return claims.getId();
+    }
+
+    /**
+     * Id of the user the token was issued to, or null for a token issued without one
+     */
+    public Long userId() {
+        Object userId = claims.get(JwtTokenUtil.USER_ID_CLAIM);
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    public List<String> roles() {
+        Object roles = claims.get(JwtTokenUtil.ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream()
+                .map(String::valueOf)
+                .toList();
+    }
+
+    public Date issuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    public Date expiration() {
+        return claims.getExpiration();
+    }
+
+    public boolean isRefreshToken() {
+        return JwtTokenUtil.REFRESH_TOKEN_TYPE.equals(claims.get(JwtTokenUtil.TYPE_CLAIM));
+    }
+}
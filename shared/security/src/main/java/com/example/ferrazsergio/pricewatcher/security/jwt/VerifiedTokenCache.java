@@ -0,0 +1,98 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers verified tokens so repeated requests with the same token skip the signature check and
+ * claims decoding.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the token and kept for at most {@code jwt.cache.ttl}
+ * milliseconds, never past the token's own expiration; at most {@code jwt.cache.maximum-size} tokens are
+ * kept. The {@link TokenRevocationList} is consulted on every lookup, cached or not, so a revocation
+ * takes effect on the next request.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final TokenRevocationList revocationList;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtTokenUtil jwtTokenUtil, TokenRevocationList revocationList,
+                              @Value("${jwt.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${jwt.cache.ttl:300000}") long ttl) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.revocationList = revocationList;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new CappedAtTokenExpiration(TimeUnit.MILLISECONDS.toNanos(ttl)))
+                .build();
+    }
+
+    /**
+     * Returns the verified token, or empty for a token that is malformed, forged, expired or revoked
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        String key = hash(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified == null) {
+            verified = jwtTokenUtil.verifyToken(token).orElse(null);
+            if (verified == null) {
+                return Optional.empty();
+            }
+            cache.put(key, verified);
+        }
+        if (revocationList.isRevoked(verified)) {
+            cache.invalidate(key);
+            return Optional.empty();
+        }
+        return Optional.of(verified);
+    }
+
+    private static String hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private record CappedAtTokenExpiration(long ttlNanos) implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            if (token.expiration() == null) {
+                return ttlNanos;
+            }
+            long untilExpiration = TimeUnit.MILLISECONDS.toNanos(
+                    token.expiration().getTime() - System.currentTimeMillis());
+            return Math.max(0, Math.min(ttlNanos, untilExpiration));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
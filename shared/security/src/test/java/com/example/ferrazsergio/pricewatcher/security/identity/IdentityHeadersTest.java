@@ -0,0 +1,70 @@
+package com.example.ferrazsergio.pricewatcher.security.identity;
+
+import com.example.ferrazsergio.pricewatcher.security.jwt.AuthenticatedUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentityHeadersTest {
+
+    private static final String SECRET = "identitySecretUsedOnlyByTheseTests";
+
+    private final IdentityHeaders identityHeaders = new IdentityHeaders(SECRET, 30_000);
+    private final AuthenticatedUser user = new AuthenticatedUser(42L, "José da Silva", List.of("ROLE_USER", "ROLE_ADMIN"),
+            "0190d6a8-0000-7000-8000-000000000001", 1_900_000_000_000L);
+
+    @Test
+    void readsBackTheSignedUser() {
+        Map<String, String> headers = identityHeaders.sign(user);
+
+        assertThat(identityHeaders.verify(headers::get)).contains(user);
+    }
+
+    @Test
+    void readsBackAUserWithoutIdOrTokenId() {
+        AuthenticatedUser anonymousToken = new AuthenticatedUser(null, "alice", List.of(), null, 0);
+
+        assertThat(identityHeaders.verify(identityHeaders.sign(anonymousToken)::get)).contains(anonymousToken);
+    }
+
+    @Test
+    void rejectsTamperedHeaders() {
+        Map<String, String> headers = new HashMap<>(identityHeaders.sign(user));
+        headers.put(IdentityHeaders.USER_ROLES, "ROLE_USER,ROLE_ADMIN,ROLE_ROOT");
+
+        assertThat(identityHeaders.verify(headers::get)).isEmpty();
+    }
+
+    @Test
+    void rejectsHeadersSignedWithAnotherKey() {
+        Map<String, String> headers = new IdentityHeaders("someOtherSecret", 30_000).sign(user);
+
+        assertThat(identityHeaders.verify(headers::get)).isEmpty();
+    }
+
+    @Test
+    void rejectsHeadersOlderThanTheMaximumAge() throws InterruptedException {
+        IdentityHeaders shortLived = new IdentityHeaders(SECRET, 50);
+        Map<String, String> headers = shortLived.sign(user);
+        Thread.sleep(100);
+
+        assertThat(shortLived.verify(headers::get)).isEmpty();
+    }
+
+    @Test
+    void ignoresRequestsWithoutHeaders() {
+        assertThat(identityHeaders.verify(name -> null)).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        Map<String, String> headers = new HashMap<>(identityHeaders.sign(user));
+        headers.remove(IdentityHeaders.TIMESTAMP);
+
+        assertThat(identityHeaders.verify(headers::get)).isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ferrazsergio.pricewatcher.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void revokesASingleTokenById() {
+        TokenRevocationList revocations = new TokenRevocationList(eventPublisher, HOUR, HOUR);
+        long now = System.currentTimeMillis();
+        VerifiedToken revoked = token("t1", 42L, now - 1000);
+
+        assertThat(revocations.revokeToken(AuthenticatedUser.from(revoked))).isTrue();
+
+        assertThat(revocations.isRevoked(revoked)).isTrue();
+        assertThat(revocations.isRevoked(token("t2", 42L, now - 1000))).isFalse();
+        verify(eventPublisher).publishEvent(TokenRevocation.token("t1", revoked.expiration().getTime()));
+    }
+
+    @Test
+    void cannotRevokeATokenWithoutAnId() {
+        TokenRevocationList revocations = new TokenRevocationList(eventPublisher, HOUR, HOUR);
+
+        assertThat(revocations.revokeToken(new AuthenticatedUser(42L, "alice", List.of(), null, 0))).isFalse();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void revokesEveryTokenIssuedToAUserUntilNow() {
+        TokenRevocationList revocations = new TokenRevocationList(eventPublisher, HOUR, HOUR);
+        long now = System.currentTimeMillis();
+
+        revocations.revokeUser(42L);
+
+        assertThat(revocations.isRevoked(token("t1", 42L, now - HOUR / 2))).isTrue();
+        // Without a time-ordered id, issue times have second precision, so the rest of the second is covered
+        assertThat(revocations.isRevoked(token("t2", 42L, now / 1000 * 1000))).isTrue();
+        assertThat(revocations.isRevoked(token("t3", 42L, (now / 1000 + 2) * 1000))).isFalse();
+        assertThat(revocations.isRevoked(token("t4", 7L, now - 1000))).isFalse();
+    }
+
+    @Test
+    void comparesTimeOrderedTokenIdsToTheMillisecond() {
+        TokenRevocationList revocations = new TokenRevocationList(eventPublisher, HOUR, HOUR);
+        long now = System.currentTimeMillis();
+        revocations.apply(TokenRevocation.user(42L, now, now + HOUR));
+
+        // A token issued within the same second, but after the revocation, as on signing in again
+        assertThat(revocations.isRevoked(token(idIssuedAt(now + 1), 42L, now / 1000 * 1000))).isFalse();
+        assertThat(revocations.isRevoked(token(idIssuedAt(now - 1), 42L, now / 1000 * 1000))).isTrue();
+    }
+
+    @Test
+    void keepsTheLatestUserRevocation() {
+        TokenRevocationList revocations = new TokenRevocationList(eventPublisher, HOUR, HOUR);
+        long now = System.currentTimeMillis();
+
+        revocations.apply(TokenRevocation.user(42L, now, now + HOUR));
+        revocations.apply(TokenRevocation.user(42L, now - 10_000, now + HOUR));
+
+        assertThat(revocations.isRevoked(token("t1", 42L, now - 5_000))).isTrue();
+    }
+
+    @Test
+    void ignoresRevocationsWhoseTokensHaveAllExpired() {
+        TokenRevocationList revocations = new TokenRevocationList(eventPublisher, HOUR, HOUR);
+        long now = System.currentTimeMillis();
+
+        revocations.apply(TokenRevocation.token("t1", now - 1));
+
+        assertThat(revocations.isRevoked(token("t1", 42L, now - HOUR))).isFalse();
+    }
+
+    @Test
+    void replicatesRevocationsInACompactForm() {
+        TokenRevocation revocation = TokenRevocation.token("id with spaces", 1234L);
+
+        assertThat(TokenRevocation.decode(revocation.encode())).isEqualTo(revocation);
+    }
+
+    private static String idIssuedAt(long millis) {
+        return new UUID(millis << 16 | 0x7000L, 0x8000000000000000L).toString();
+    }
+
+    private static VerifiedToken token(String id, Long userId, long issuedAt) {
+        return new VerifiedToken("unused", Jwts.claims()
+                .id(id)
+                .subject("user-" + userId)
+                .add(JwtTokenUtil.USER_ID_CLAIM, userId)
+                .issuedAt(new Date(issuedAt))
+                .expiration(new Date(issuedAt + HOUR))
+                .build());
+    }
+}